@@ -0,0 +1,86 @@
+package com.github.tomaszgryczka.mwotests;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of a list of players in JSON and in Smile, with mappers configured
+ * like the application's. The encoded size of each payload is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerCodecBenchmark {
+    private static final String[] COUNTRIES = {"Polska", "Niemcy", "Francja", "Hiszpania", "Czechy"};
+
+    @Param({"1", "100", "10000"})
+    public int players;
+
+    @Param({"json", "smile"})
+    public String format;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Player> payload;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void encodePlayers() throws IOException {
+        final ObjectMapper mapper = "smile".equals(format)
+                ? SmileConfiguration.smileMapper(Jackson2ObjectMapperBuilder.json())
+                : Jackson2ObjectMapperBuilder.json().build();
+        final JavaType type = mapper.getTypeFactory().constructCollectionType(List.class, Player.class);
+        writer = mapper.writerFor(type);
+        reader = mapper.readerFor(type);
+
+        payload = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            payload.add(Player.builder()
+                    .id((long) i)
+                    .coachId((long) (i % 50))
+                    .firstname("Czesiek" + i)
+                    .lastname("Zwinny")
+                    .country(COUNTRIES[i % COUNTRIES.length])
+                    .dateOfBirth(LocalDate.of(1980, 1, 1).plusDays(i % 10000))
+                    .height(150.0 + i % 60)
+                    .weight(60.0 + i % 50)
+                    .build());
+        }
+        encoded = writer.writeValueAsBytes(payload);
+        System.out.printf("%n%s payload of %d players: %d bytes%n", format, players, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public List<Player> decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerServiceBenchmark {
+    private static final String[] COUNTRIES = {"Polska", "Niemcy", "Francja", "Hiszpania", "Czechy",
+            "Słowacja", "Litwa", "Ukraina", "Szwecja", "Norwegia", "Dania", "Holandia", "Belgia", "Austria",
+            "Węgry", "Rumunia", "Włochy", "Portugalia", "Grecja", "Finlandia"};
+
+    @Param({"1000", "100000", "1000000"})
+    public int storeSize;
+
+    @Param({"heap", "columnar"})
+    public String storage;
+
+    private PlayerStore playerStore;
+    private PlayerService playerService;
+
+    @Setup(Level.Iteration)
+    public void fillStore() {
+        final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        playerStore = "columnar".equals(storage) ? new ColumnarPlayerStore() : new InMemoryPlayerStore();
+        beanFactory.addBean("playerStore", playerStore);
+        playerService = new PlayerService(beanFactory.getBeanProvider(PlayerStore.class),
+                beanFactory.getBeanProvider(PlayerJournal.class));
+        for (int i = 0; i < storeSize; i++) {
+            playerService.save(playerRequest(i));
+        }
+    }
+
+    @Benchmark
+    public Player save() {
+        return playerService.save(playerRequest(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE)));
+    }
+
+    @Benchmark
+    public Player findPlayerById() {
+        return playerService.findPlayerById(randomId());
+    }
+
+    @Benchmark
+    public List<Player> findPlayersByCountry() {
+        return playerService.findPlayersByCountry(COUNTRIES[ThreadLocalRandom.current().nextInt(COUNTRIES.length)]);
+    }
+
+    /**
+     * First page of 100 players of a random coach.
+     */
+    @Benchmark
+    public PlayerPage findPlayersByCoach() {
+        return playerService.findPlayersByCoach(ThreadLocalRandom.current().nextInt(50), null, 100);
+    }
+
+    /**
+     * One page of players born within a random year and taller than 190cm, ordered by birth date.
+     */
+    @Benchmark
+    public List<Player> findPlayersInRange() {
+        final LocalDate bornFrom = LocalDate.of(1980, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(10000 - 365));
+        return playerService.findPlayersInRange(PlayerRangeQuery.builder()
+                .bornFrom(bornFrom)
+                .bornTo(bornFrom.plusYears(1))
+                .minHeight(190.0)
+                .limit(100)
+                .build());
+    }
+
+    /**
+     * Top 10 players whose first name starts with a random "czesiekNNN" prefix.
+     */
+    @Benchmark
+    public List<Player> searchPlayersByName() {
+        return playerService.searchPlayersByName("czesiek" + ThreadLocalRandom.current().nextInt(1000), 10);
+    }
+
+    @Benchmark
+    public PlayerBodyStats getBodyStats() {
+        return playerService.getBodyStats();
+    }
+
+    @Benchmark
+    public Map<String, SortedMap<Integer, Long>> getAgeDistributionByCountry() {
+        return playerService.getAgeDistributionByCountry();
+    }
+
+    @Benchmark
+    public PlayerStats getStats() {
+        return playerService.getStats();
+    }
+
+    /**
+     * Catching up on the latest 100 changes, which costs the same for every {@link #storeSize}.
+     */
+    @Benchmark
+    public PlayerChanges findChanges() {
+        return playerService.findChanges(playerService.getChangeVersion() - 100, 100);
+    }
+
+    @Benchmark
+    public Player setPlayerInfoById() {
+        final long id = randomId();
+        return playerService.setPlayerInfoById(Player.builder()
+                .id(id)
+                .coachId(id % 50)
+                .firstname("Marcin")
+                .lastname("Powolny")
+                .country(COUNTRIES[(int) (id % COUNTRIES.length)])
+                .dateOfBirth(LocalDate.of(2000, 1, 1).plusDays(id % 5000))
+                .height(165.0)
+                .weight(80.2)
+                .build());
+    }
+
+    /**
+     * Deletes a random player and puts it back straight into the store, so the store size
+     * stays at {@link #storeSize}; the re-insert is part of the measured time.
+     */
+    @Benchmark
+    public Player deletePlayerById() {
+        final long id = randomId();
+        final Player player = playerService.findPlayerById(id);
+        playerService.deletePlayerById(id);
+        playerStore.insert(player);
+        return player;
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, storeSize + 1);
+    }
+
+    private static PlayerRequest playerRequest(final int index) {
+        return PlayerRequest.builder()
+                .coachId((long) (index % 50))
+                .firstname("Czesiek" + index)
+                .lastname("Zwinny")
+                .country(COUNTRIES[index % COUNTRIES.length])
+                .dateOfBirth(LocalDate.of(1980, 1, 1).plusDays(index % 10000))
+                .height(150.0 + index % 60)
+                .weight(60.0 + index % 50)
+                .build();
+    }
+}
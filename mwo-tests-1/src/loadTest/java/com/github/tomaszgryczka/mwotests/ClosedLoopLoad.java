@@ -0,0 +1,64 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Closed-model load: a fixed number of virtual users, each sending its next request as soon
+ * as the previous response arrives. Requests are sent asynchronously, so the client holds
+ * thousands of connections open without a thread per user and the server stays the
+ * bottleneck.
+ */
+public class ClosedLoopLoad {
+    private final HttpClient client;
+    private final Supplier<HttpRequest> requests;
+    private final int concurrency;
+
+    public ClosedLoopLoad(final HttpClient client, final Supplier<HttpRequest> requests, final int concurrency) {
+        this.client = client;
+        this.requests = requests;
+        this.concurrency = concurrency;
+    }
+
+    public LoadReport run(final String name, final Duration duration) throws InterruptedException {
+        final Run run = new Run(System.nanoTime() + duration.toNanos());
+        final long start = System.nanoTime();
+        for (int user = 0; user < concurrency; user++) {
+            run.sendNext();
+        }
+        run.finished.await();
+        return new LoadReport(name, run.histogram.snapshot(), run.errors.get(), 0, System.nanoTime() - start);
+    }
+
+    private final class Run {
+        private final long deadline;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final CountDownLatch finished = new CountDownLatch(concurrency);
+
+        private Run(final long deadline) {
+            this.deadline = deadline;
+        }
+
+        private void sendNext() {
+            final long sent = System.nanoTime();
+            if (sent >= deadline) {
+                finished.countDown();
+                return;
+            }
+            client.sendAsync(requests.get(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        histogram.record(System.nanoTime() - sent);
+                        if (failure != null || response.statusCode() >= 500) {
+                            errors.incrementAndGet();
+                        }
+                        sendNext();
+                    });
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests are started on a fixed schedule at the configured rate whether or
+ * not earlier ones have completed, the way independent clients arrive. Latency is measured
+ * from the time a request was scheduled to start rather than from when it was actually sent,
+ * so a stalled server or a generator that fell behind shows up in the percentiles instead of
+ * silently lowering the offered load (coordinated omission).
+ * <p>
+ * At most {@code maxInFlight} requests are outstanding; a request that would exceed that is
+ * not sent and counts as rejected.
+ */
+public class OpenLoopLoad {
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadMix mix;
+    private final double ratePerSecond;
+    private final int maxInFlight;
+
+    public OpenLoopLoad(final LoadMix mix, final double ratePerSecond, final int maxInFlight) {
+        this.mix = mix;
+        this.ratePerSecond = ratePerSecond;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * @return a report per operation of the mix, followed by the report of all requests
+     */
+    public List<LoadReport> run(final String name, final Duration duration) throws InterruptedException {
+        final int operations = mix.names().size();
+        final Counters total = new Counters();
+        final Counters[] byOperation = new Counters[operations];
+        for (int i = 0; i < operations; i++) {
+            byOperation[i] = new Counters();
+        }
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        final long start = System.nanoTime();
+        final long end = start + duration.toNanos();
+        for (long sequence = 0; ; sequence++) {
+            final long scheduled = start + (long) (sequence * intervalNanos);
+            if (scheduled >= end) {
+                break;
+            }
+            for (long now = System.nanoTime(); now < scheduled; now = System.nanoTime()) {
+                LockSupport.parkNanos(scheduled - now);
+            }
+
+            final int operation = mix.pick();
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                byOperation[operation].rejected.incrementAndGet();
+                total.rejected.incrementAndGet();
+                continue;
+            }
+            call(mix.operation(operation)).whenComplete((succeeded, failure) -> {
+                final long latency = System.nanoTime() - scheduled;
+                final boolean failed = failure != null || !Boolean.TRUE.equals(succeeded);
+                byOperation[operation].record(latency, failed);
+                total.record(latency, failed);
+                inFlight.decrementAndGet();
+            });
+        }
+
+        final long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(1);
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        final List<LoadReport> reports = new ArrayList<>(operations + 1);
+        for (int i = 0; i < operations; i++) {
+            reports.add(byOperation[i].report(name + " " + mix.names().get(i), elapsed));
+        }
+        reports.add(total.report(name + " total", elapsed));
+        return reports;
+    }
+
+    private static CompletableFuture<Boolean> call(final LoadOperation operation) {
+        try {
+            return operation.call();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static final class Counters {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        private void record(final long latency, final boolean failed) {
+            histogram.record(latency);
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+
+        private LoadReport report(final String name, final long elapsedNanos) {
+            return new LoadReport(name, histogram.snapshot(), errors.get(), rejected.get(), elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Starts the application in servlet mode and then in reactive mode, fills each with the same
+ * players and drives both with the same read-heavy request mix at a high number of concurrent
+ * users, then prints throughput and latency percentiles side by side.
+ * <p>
+ * Run with {@code ./gradlew loadTest}; {@code -Pload.concurrency}, {@code -Pload.duration},
+ * {@code -Pload.warmup} and {@code -Pload.players} override the defaults. Large concurrency
+ * needs a matching open file limit.
+ */
+public class PlayerApiLoadTest {
+    private static final String[] COUNTRIES = {"Polska", "Niemcy", "Francja", "Hiszpania", "Czechy"};
+
+    public static void main(final String[] args) throws Exception {
+        final int concurrency = Integer.getInteger("load.concurrency", 1000);
+        final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        final Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+        final int players = Integer.getInteger("load.players", 100_000);
+
+        final List<LoadReport> reports = new ArrayList<>();
+        for (final WebApplicationType mode : List.of(WebApplicationType.SERVLET, WebApplicationType.REACTIVE)) {
+            try (ConfigurableApplicationContext app = start(mode)) {
+                seed(app.getBean(PlayerService.class), players);
+                final URI baseUri = URI.create("http://localhost:"
+                        + app.getEnvironment().getProperty("local.server.port") + "/players");
+                final HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                final ClosedLoopLoad load = new ClosedLoopLoad(client, requestMix(baseUri, players), concurrency);
+                load.run(mode + " warmup", warmup);
+                reports.add(load.run(mode.name().toLowerCase() + ", " + concurrency + " users", duration));
+            }
+        }
+
+        System.out.print(LoadReport.header());
+        reports.forEach(System.out::print);
+    }
+
+    static ConfigurableApplicationContext start(final WebApplicationType mode) {
+        return new SpringApplicationBuilder(MwoTestsApplication.class)
+                .web(mode)
+                .properties("server.port=0", "logging.level.com.github.tomaszgryczka=warn")
+                .run();
+    }
+
+    static void seed(final PlayerService playerService, final int players) {
+        final List<PlayerRequest> requests = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            requests.add(playerRequest(i));
+        }
+        playerService.saveAll(requests);
+    }
+
+    /**
+     * 80% lookups by id, 15% first pages of a country, 5% creates.
+     */
+    private static Supplier<HttpRequest> requestMix(final URI baseUri, final int players) {
+        return () -> {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int pick = random.nextInt(100);
+            if (pick < 80) {
+                return HttpRequest.newBuilder(baseUri.resolve("/players/" + random.nextInt(1, players + 1))).GET().build();
+            }
+            if (pick < 95) {
+                return HttpRequest.newBuilder(baseUri.resolve("/players/filter/"
+                        + COUNTRIES[random.nextInt(COUNTRIES.length)] + "?limit=20")).GET().build();
+            }
+            return HttpRequest.newBuilder(baseUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"coachId\":1,\"firstname\":\"Czesiek\","
+                            + "\"lastname\":\"Zwinny\",\"country\":\"Polska\",\"dateOfBirth\":\"2000-12-12\","
+                            + "\"height\":160.0,\"weight\":80.0}"))
+                    .build();
+        };
+    }
+
+    private static PlayerRequest playerRequest(final int index) {
+        return PlayerRequest.builder()
+                .coachId((long) (index % 50))
+                .firstname("Czesiek" + index)
+                .lastname("Zwinny")
+                .country(COUNTRIES[index % COUNTRIES.length])
+                .dateOfBirth(LocalDate.of(1980, 1, 1).plusDays(index % 10000))
+                .height(150.0 + index % 60)
+                .weight(60.0 + index % 50)
+                .build();
+    }
+}
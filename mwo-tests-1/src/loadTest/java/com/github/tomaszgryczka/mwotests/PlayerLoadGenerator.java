@@ -0,0 +1,162 @@
+package com.github.tomaszgryczka.mwotests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drives open-model traffic against the {@code /players} API of an application started on an
+ * ephemeral port, prints throughput and latency percentiles per operation, and exits with a
+ * non-zero status when the total misses a {@link LoadSlo}.
+ * <p>
+ * Run with {@code ./gradlew loadCheck}. {@code -Pload.rate} (requests per second),
+ * {@code -Pload.duration}, {@code -Pload.warmup}, {@code -Pload.players},
+ * {@code -Pload.mix}, {@code -Pload.mode} ({@code servlet} or {@code reactive}),
+ * {@code -Pload.max-in-flight} and the {@code -Pload.slo.*} objectives override the defaults.
+ * Gets and updates target the seeded players, deletes only remove players created by the run,
+ * so every request is expected to succeed.
+ */
+public class PlayerLoadGenerator {
+    private static final String[] COUNTRIES = {"Polska", "Niemcy", "Francja", "Hiszpania", "Czechy"};
+    private static final String DEFAULT_MIX = "get=60,filter=15,create=10,update=10,delete=5";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper;
+    private final URI baseUri;
+    private final int players;
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    PlayerLoadGenerator(final ObjectMapper objectMapper, final URI baseUri, final int players) {
+        this.objectMapper = objectMapper;
+        this.baseUri = baseUri;
+        this.players = players;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final WebApplicationType mode = WebApplicationType.valueOf(System.getProperty("load.mode", "servlet").toUpperCase());
+        final double rate = Double.parseDouble(System.getProperty("load.rate", "2000"));
+        final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        final Duration duration = Duration.parse(System.getProperty("load.duration", "PT60S"));
+        final int players = Integer.getInteger("load.players", 100_000);
+        final int maxInFlight = Integer.getInteger("load.max-in-flight", 10_000);
+        final String mixSpec = System.getProperty("load.mix", DEFAULT_MIX);
+        final LoadSlo slo = LoadSlo.fromSystemProperties();
+
+        final List<LoadReport> reports;
+        try (ConfigurableApplicationContext app = PlayerApiLoadTest.start(mode)) {
+            PlayerApiLoadTest.seed(app.getBean(PlayerService.class), players);
+            final PlayerLoadGenerator generator = new PlayerLoadGenerator(app.getBean(ObjectMapper.class),
+                    URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port")), players);
+            final OpenLoopLoad load = new OpenLoopLoad(new LoadMix(mixSpec, generator.operations()), rate, maxInFlight);
+            load.run("warmup", warmup);
+            reports = load.run(mode.name().toLowerCase(), duration);
+        }
+
+        System.out.print(LoadReport.header());
+        reports.forEach(System.out::print);
+
+        final List<String> violations = slo.violations(reports.get(reports.size() - 1));
+        if (!violations.isEmpty()) {
+            violations.forEach(violation -> System.err.println("SLO breached: " + violation));
+            System.exit(1);
+        }
+    }
+
+    Map<String, LoadOperation> operations() {
+        return Map.of(
+                "get", () -> send(HttpRequest.newBuilder(uri("/players/" + seededId())).GET().build()),
+                "filter", () -> send(HttpRequest.newBuilder(uri("/players/filter/"
+                        + COUNTRIES[ThreadLocalRandom.current().nextInt(COUNTRIES.length)] + "?limit=20")).GET().build()),
+                "create", this::create,
+                "update", () -> send(json(HttpRequest.newBuilder(uri("/players")), "PUT", player(seededId()))),
+                "delete", () -> send(HttpRequest.newBuilder(uri("/players/" + createdIdOrMissing())).DELETE().build()));
+    }
+
+    private CompletableFuture<Boolean> create() {
+        final Player player = player(0);
+        final HttpRequest request = json(HttpRequest.newBuilder(uri("/players")), "POST", PlayerRequest.builder()
+                .coachId(player.getCoachId())
+                .firstname(player.getFirstname())
+                .lastname(player.getLastname())
+                .country(player.getCountry())
+                .dateOfBirth(player.getDateOfBirth())
+                .height(player.getHeight())
+                .weight(player.getWeight())
+                .build());
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 201) {
+                        return false;
+                    }
+                    try {
+                        createdIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+                        return true;
+                    } catch (IOException e) {
+                        return false;
+                    }
+                });
+    }
+
+    private CompletableFuture<Boolean> send(final HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() < 400);
+    }
+
+    private HttpRequest json(final HttpRequest.Builder builder, final String method, final Object body) {
+        try {
+            return builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A player created during the run, or an id that was never assigned once none is left,
+     * which the API deletes as a no-op.
+     */
+    private long createdIdOrMissing() {
+        final Long id = createdIds.poll();
+        return id != null ? id : Long.MAX_VALUE;
+    }
+
+    private long seededId() {
+        return ThreadLocalRandom.current().nextLong(1, players + 1);
+    }
+
+    private URI uri(final String path) {
+        return baseUri.resolve(path);
+    }
+
+    private static Player player(final long id) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Player.builder()
+                .id(id)
+                .coachId(random.nextInt(50))
+                .firstname("Czesiek")
+                .lastname("Zwinny")
+                .country(COUNTRIES[random.nextInt(COUNTRIES.length)])
+                .dateOfBirth(LocalDate.of(1980, 1, 1).plusDays(random.nextInt(10000)))
+                .height(150.0 + random.nextInt(60))
+                .weight(60.0 + random.nextInt(50))
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Count, minimum, maximum and average of one numeric attribute over the players that have a
+ * value for it; the extremes and the average are {@code null} when no player has one.
+ */
+@Data
+@Builder
+public class AttributeStats {
+    private final long count;
+    private final Double min;
+    private final Double max;
+    private final Double average;
+
+    public static AttributeStats of(final long count, final double sum, final double min, final double max) {
+        if (count == 0) {
+            return AttributeStats.builder().count(0).build();
+        }
+        return AttributeStats.builder()
+                .count(count)
+                .min(min)
+                .max(max)
+                .average(sum / count)
+                .build();
+    }
+
+    /**
+     * Running statistics for stores without a primitive layout to loop over.
+     */
+    public static class Accumulator {
+        private long count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        public void add(final Double value) {
+            if (value != null) {
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+
+        public AttributeStats toStats() {
+            return of(count, sum, min, max);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary coach index: the ids of each coach's players in a sorted primitive array, so a
+ * roster takes 8 bytes per player and a page of k players is a binary search plus a copy of k
+ * ids. Cursors work as in {@link CountryIndex}: the id of the last player already returned.
+ */
+public class CoachIndex implements PlayerStoreListener {
+    private static final long[] NO_IDS = new long[0];
+
+    private final Map<Long, Roster> rosters = new ConcurrentHashMap<>();
+
+    /**
+     * Returns up to {@code limit} ids of the coach's players greater than {@code cursor}, or
+     * from the first one when {@code cursor} is {@code null}, in ascending order.
+     */
+    public long[] findPlayerIds(final long coachId, final Long cursor, final int limit) {
+        final Roster roster = rosters.get(coachId);
+        return roster == null ? NO_IDS : roster.page(cursor, limit);
+    }
+
+    @Override
+    public void onInsert(final Player player) {
+        add(player);
+    }
+
+    @Override
+    public void onReplace(final Player previous, final Player current) {
+        if (previous.getCoachId() != current.getCoachId()) {
+            remove(previous);
+            add(current);
+        }
+    }
+
+    @Override
+    public void onRemove(final Player player) {
+        remove(player);
+    }
+
+    @Override
+    public void onClear() {
+        rosters.clear();
+    }
+
+    private void add(final Player player) {
+        rosters.compute(player.getCoachId(), (coachId, roster) -> {
+            final Roster players = roster == null ? new Roster() : roster;
+            players.add(player.getId());
+            return players;
+        });
+    }
+
+    private void remove(final Player player) {
+        rosters.computeIfPresent(player.getCoachId(), (coachId, roster) -> {
+            roster.remove(player.getId());
+            return roster.isEmpty() ? null : roster;
+        });
+    }
+
+    /**
+     * Sorted set of player ids. Ids are assigned in increasing order, so adding one is
+     * normally an append.
+     */
+    private static final class Roster {
+        private long[] ids = new long[4];
+        private int size;
+
+        synchronized void add(final long id) {
+            final int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            final int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        synchronized void remove(final long id) {
+            final int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                size--;
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        synchronized long[] page(final Long cursor, final int limit) {
+            int from = 0;
+            if (cursor != null) {
+                final int index = Arrays.binarySearch(ids, 0, size, cursor);
+                from = index >= 0 ? index + 1 : -index - 1;
+            }
+            return Arrays.copyOfRange(ids, from, from + Math.min(limit, size - from));
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * {@link PlayerStore} keeping every attribute in its own primitive array instead of one
+ * {@link Player} object per player: ids, coach ids, birth dates (as epoch days), heights and
+ * weights are {@code long}/{@code double} columns with presence bitmaps for the nullable ones,
+ * and countries are dictionary-encoded into an {@code int} column. Players are materialised
+ * only when read, and aggregates run as plain loops over the columns.
+ * <p>
+ * Rows are kept dense: removing a player moves the last row into its place. Reads share a
+ * read lock and writes take the write lock, so this store favours scans and memory footprint
+ * over write concurrency. Listeners run under the write lock.
+ */
+public class ColumnarPlayerStore implements PlayerStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_COUNTRY = -1;
+    private static final int MAX_AGE = 150;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong lastId = new AtomicLong();
+    private final List<PlayerStoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final LongIntHashMap rowsById = new LongIntHashMap(INITIAL_CAPACITY);
+    private final Map<String, Integer> countryCodes = new HashMap<>();
+    private final List<String> countries = new ArrayList<>();
+
+    private int size;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] coachIds = new long[INITIAL_CAPACITY];
+    private String[] firstnames = new String[INITIAL_CAPACITY];
+    private String[] lastnames = new String[INITIAL_CAPACITY];
+    private int[] countryColumn = new int[INITIAL_CAPACITY];
+    private long[] birthDays = new long[INITIAL_CAPACITY];
+    private double[] heights = new double[INITIAL_CAPACITY];
+    private double[] weights = new double[INITIAL_CAPACITY];
+    private long[] birthPresent = new long[bitmapLength(INITIAL_CAPACITY)];
+    private long[] heightPresent = new long[bitmapLength(INITIAL_CAPACITY)];
+    private long[] weightPresent = new long[bitmapLength(INITIAL_CAPACITY)];
+
+    @Override
+    public long nextId() {
+        final long id = lastId.incrementAndGet();
+        listeners.forEach(listener -> listener.onReserveIds(id));
+        return id;
+    }
+
+    @Override
+    public long reserveIds(final int count) {
+        final long firstId = lastId.getAndAdd(count) + 1;
+        listeners.forEach(listener -> listener.onReserveIds(firstId + count - 1));
+        return firstId;
+    }
+
+    @Override
+    public long lastId() {
+        return lastId.get();
+    }
+
+    @Override
+    public void advanceIds(final long lastId) {
+        this.lastId.accumulateAndGet(lastId, Math::max);
+    }
+
+    @Override
+    public Player get(final long id) {
+        lock.readLock().lock();
+        try {
+            final int row = rowsById.get(id);
+            return row == LongIntHashMap.MISSING ? null : materialize(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void insert(final Player player) {
+        lastId.accumulateAndGet(player.getId(), Math::max);
+        lock.writeLock().lock();
+        try {
+            final int row = rowsById.get(player.getId());
+            if (row == LongIntHashMap.MISSING) {
+                write(append(player.getId()), player);
+                listeners.forEach(listener -> listener.onInsert(player));
+            } else {
+                final Player previous = materialize(row);
+                write(row, player);
+                listeners.forEach(listener -> listener.onReplace(previous, player));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Player replace(final Player player) {
+        lock.writeLock().lock();
+        try {
+            final int row = rowsById.get(player.getId());
+            if (row == LongIntHashMap.MISSING) {
+                return null;
+            }
+            final Player previous = materialize(row);
+            write(row, player);
+            listeners.forEach(listener -> listener.onReplace(previous, player));
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Player remove(final long id) {
+        lock.writeLock().lock();
+        try {
+            final int row = rowsById.remove(id);
+            if (row == LongIntHashMap.MISSING) {
+                return null;
+            }
+            final Player removed = materialize(row);
+            listeners.forEach(listener -> listener.onRemove(removed));
+            final int last = --size;
+            if (row != last) {
+                moveRow(last, row);
+                rowsById.put(ids[row], row);
+            }
+            firstnames[last] = null;
+            lastnames[last] = null;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Weakly consistent stream in id order: the ids are copied up front and each player is
+     * materialised when the stream reaches it.
+     */
+    @Override
+    public Stream<Player> stream() {
+        final long[] sortedIds;
+        lock.readLock().lock();
+        try {
+            sortedIds = Arrays.copyOf(ids, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(sortedIds);
+        return Arrays.stream(sortedIds)
+                .mapToObj(this::get)
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            rowsById.clear();
+            Arrays.fill(firstnames, 0, size, null);
+            Arrays.fill(lastnames, 0, size, null);
+            size = 0;
+            lastId.set(0);
+            listeners.forEach(PlayerStoreListener::onClear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addListener(final PlayerStoreListener listener) {
+        listeners.add(listener);
+        stream().forEach(listener::onInsert);
+    }
+
+    @Override
+    public PlayerBodyStats bodyStats() {
+        lock.readLock().lock();
+        try {
+            return PlayerBodyStats.builder()
+                    .height(columnStats(heights, heightPresent))
+                    .weight(columnStats(weights, weightPresent))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts into a {@code long[country][age]} matrix in one pass. Ages come from a table
+     * indexed by days before {@code today}, so no date objects are created except for the
+     * rare players older than {@link #MAX_AGE}.
+     */
+    @Override
+    public Map<String, SortedMap<Integer, Long>> ageDistributionByCountry(final LocalDate today) {
+        final long todayDay = today.toEpochDay();
+        final int[] ageByDaysBefore = new int[(int) (todayDay - today.minusYears(MAX_AGE).toEpochDay())];
+        for (int age = 0, daysBefore = 0; age < MAX_AGE; age++) {
+            final long firstDayOfNextAge = todayDay - today.minusYears(age + 1).toEpochDay();
+            for (; daysBefore < firstDayOfNextAge; daysBefore++) {
+                ageByDaysBefore[daysBefore] = age;
+            }
+        }
+
+        final Map<String, SortedMap<Integer, Long>> distribution = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            final long[][] counts = new long[countries.size()][MAX_AGE];
+            for (int row = 0; row < size; row++) {
+                final int country = countryColumn[row];
+                if (country == NO_COUNTRY || !isSet(birthPresent, row)) {
+                    continue;
+                }
+                final long daysBefore = todayDay - birthDays[row];
+                if (daysBefore < 0) {
+                    continue;
+                }
+                if (daysBefore < ageByDaysBefore.length) {
+                    counts[country][ageByDaysBefore[(int) daysBefore]]++;
+                } else {
+                    final int age = Period.between(LocalDate.ofEpochDay(birthDays[row]), today).getYears();
+                    distribution.computeIfAbsent(countries.get(country), key -> new TreeMap<>())
+                            .merge(age, 1L, Long::sum);
+                }
+            }
+
+            for (int country = 0; country < counts.length; country++) {
+                for (int age = 0; age < MAX_AGE; age++) {
+                    if (counts[country][age] > 0) {
+                        distribution.computeIfAbsent(countries.get(country), key -> new TreeMap<>())
+                                .put(age, counts[country][age]);
+                    }
+                }
+            }
+            return distribution;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private AttributeStats columnStats(final double[] column, final long[] present) {
+        long count = 0;
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < size; row++) {
+            if (isSet(present, row)) {
+                final double value = column[row];
+                count++;
+                sum += value;
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        return AttributeStats.of(count, sum, min, max);
+    }
+
+    private int append(final long id) {
+        if (size == ids.length) {
+            grow(size * 2);
+        }
+        final int row = size++;
+        ids[row] = id;
+        rowsById.put(id, row);
+        return row;
+    }
+
+    private void write(final int row, final Player player) {
+        coachIds[row] = player.getCoachId();
+        firstnames[row] = player.getFirstname();
+        lastnames[row] = player.getLastname();
+        countryColumn[row] = encodeCountry(player.getCountry());
+        final LocalDate dateOfBirth = player.getDateOfBirth();
+        birthDays[row] = dateOfBirth == null ? 0 : dateOfBirth.toEpochDay();
+        setBit(birthPresent, row, dateOfBirth != null);
+        heights[row] = player.getHeight() == null ? 0 : player.getHeight();
+        setBit(heightPresent, row, player.getHeight() != null);
+        weights[row] = player.getWeight() == null ? 0 : player.getWeight();
+        setBit(weightPresent, row, player.getWeight() != null);
+    }
+
+    private Player materialize(final int row) {
+        return Player.builder()
+                .id(ids[row])
+                .coachId(coachIds[row])
+                .firstname(firstnames[row])
+                .lastname(lastnames[row])
+                .country(countryColumn[row] == NO_COUNTRY ? null : countries.get(countryColumn[row]))
+                .dateOfBirth(isSet(birthPresent, row) ? LocalDate.ofEpochDay(birthDays[row]) : null)
+                .height(isSet(heightPresent, row) ? heights[row] : null)
+                .weight(isSet(weightPresent, row) ? weights[row] : null)
+                .build();
+    }
+
+    private void moveRow(final int from, final int to) {
+        ids[to] = ids[from];
+        coachIds[to] = coachIds[from];
+        firstnames[to] = firstnames[from];
+        lastnames[to] = lastnames[from];
+        countryColumn[to] = countryColumn[from];
+        birthDays[to] = birthDays[from];
+        setBit(birthPresent, to, isSet(birthPresent, from));
+        heights[to] = heights[from];
+        setBit(heightPresent, to, isSet(heightPresent, from));
+        weights[to] = weights[from];
+        setBit(weightPresent, to, isSet(weightPresent, from));
+    }
+
+    private int encodeCountry(final String country) {
+        if (country == null) {
+            return NO_COUNTRY;
+        }
+        return countryCodes.computeIfAbsent(country, key -> {
+            countries.add(key);
+            return countries.size() - 1;
+        });
+    }
+
+    private void grow(final int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        coachIds = Arrays.copyOf(coachIds, capacity);
+        firstnames = Arrays.copyOf(firstnames, capacity);
+        lastnames = Arrays.copyOf(lastnames, capacity);
+        countryColumn = Arrays.copyOf(countryColumn, capacity);
+        birthDays = Arrays.copyOf(birthDays, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        birthPresent = Arrays.copyOf(birthPresent, bitmapLength(capacity));
+        heightPresent = Arrays.copyOf(heightPresent, bitmapLength(capacity));
+        weightPresent = Arrays.copyOf(weightPresent, bitmapLength(capacity));
+    }
+
+    private static boolean isSet(final long[] bitmap, final int row) {
+        return (bitmap[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static void setBit(final long[] bitmap, final int row, final boolean value) {
+        if (value) {
+            bitmap[row >>> 6] |= 1L << row;
+        } else {
+            bitmap[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    private static int bitmapLength(final int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Switches {@link PlayerService} to the {@link ColumnarPlayerStore} when
+ * {@code players.storage=columnar}. With {@code players.persistence.directory} set,
+ * {@link PlayerPersistenceConfiguration} creates the store instead and honours the same property.
+ */
+@Configuration
+@ConditionalOnExpression("'${players.storage:heap}' == 'columnar' and '${players.persistence.directory:}' == ''")
+public class ColumnarPlayerStoreConfiguration {
+
+    @Bean
+    public PlayerStore playerStore() {
+        return new ColumnarPlayerStore();
+    }
+}
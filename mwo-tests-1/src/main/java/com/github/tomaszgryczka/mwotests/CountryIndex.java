@@ -0,0 +1,83 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Secondary country index. Players of each country are kept ordered by id, which gives
+ * cheap cursor pagination: a cursor is the id of the last player already returned.
+ * Only ids are indexed; players are looked up in the store as the result is walked.
+ */
+public class CountryIndex implements PlayerStoreListener {
+    private final Map<String, NavigableSet<Long>> playersByCountry = new ConcurrentHashMap<>();
+    private final LongFunction<Player> players;
+
+    public CountryIndex(final LongFunction<Player> players) {
+        this.players = players;
+    }
+
+    /**
+     * Lazy, weakly consistent walk over the players from the given country whose id is greater
+     * than {@code cursor}, or over all of them when {@code cursor} is {@code null}.
+     */
+    public Stream<Player> findPlayers(final String country, final Long cursor) {
+        return findPlayerIds(country, cursor)
+                .map(players::apply)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * The ids {@link #findPlayers} would resolve, for callers that look players up themselves.
+     */
+    public Stream<Long> findPlayerIds(final String country, final Long cursor) {
+        final NavigableSet<Long> ids = country == null ? null : playersByCountry.get(country);
+        if (ids == null) {
+            return Stream.empty();
+        }
+        return (cursor == null ? ids : ids.tailSet(cursor, false)).stream();
+    }
+
+    @Override
+    public void onInsert(final Player player) {
+        add(player);
+    }
+
+    @Override
+    public void onReplace(final Player previous, final Player current) {
+        if (!Objects.equals(previous.getCountry(), current.getCountry())) {
+            remove(previous);
+        }
+        add(current);
+    }
+
+    @Override
+    public void onRemove(final Player player) {
+        remove(player);
+    }
+
+    @Override
+    public void onClear() {
+        playersByCountry.clear();
+    }
+
+    private void add(final Player player) {
+        if (player.getCountry() != null) {
+            playersByCountry.computeIfAbsent(player.getCountry(), country -> new ConcurrentSkipListSet<>())
+                    .add(player.getId());
+        }
+    }
+
+    private void remove(final Player player) {
+        if (player.getCountry() != null) {
+            final NavigableSet<Long> ids = playersByCountry.get(player.getCountry());
+            if (ids != null) {
+                ids.remove(player.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Heap-only {@link PlayerStore} safe for concurrent use. Point operations go through a
+ * concurrent hash index, ids come from an atomic sequence and are kept in a sorted set so
+ * that listing follows id allocation order.
+ */
+public class InMemoryPlayerStore implements PlayerStore {
+    private final Map<Long, Player> players = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> insertionOrder = new ConcurrentSkipListSet<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final List<PlayerStoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public long nextId() {
+        final long id = lastId.incrementAndGet();
+        listeners.forEach(listener -> listener.onReserveIds(id));
+        return id;
+    }
+
+    @Override
+    public long reserveIds(final int count) {
+        final long firstId = lastId.getAndAdd(count) + 1;
+        listeners.forEach(listener -> listener.onReserveIds(firstId + count - 1));
+        return firstId;
+    }
+
+    @Override
+    public long lastId() {
+        return lastId.get();
+    }
+
+    @Override
+    public void advanceIds(final long lastId) {
+        this.lastId.accumulateAndGet(lastId, Math::max);
+    }
+
+    @Override
+    public Player get(final long id) {
+        return players.get(id);
+    }
+
+    @Override
+    public void insert(final Player player) {
+        lastId.accumulateAndGet(player.getId(), Math::max);
+        players.compute(player.getId(), (id, previous) -> {
+            if (previous == null) {
+                listeners.forEach(listener -> listener.onInsert(player));
+            } else {
+                listeners.forEach(listener -> listener.onReplace(previous, player));
+            }
+            return player;
+        });
+        insertionOrder.add(player.getId());
+    }
+
+    @Override
+    public Player replace(final Player player) {
+        final Player[] replaced = new Player[1];
+        players.computeIfPresent(player.getId(), (id, previous) -> {
+            listeners.forEach(listener -> listener.onReplace(previous, player));
+            replaced[0] = previous;
+            return player;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public Player remove(final long id) {
+        final Player[] removed = new Player[1];
+        players.computeIfPresent(id, (key, previous) -> {
+            listeners.forEach(listener -> listener.onRemove(previous));
+            removed[0] = previous;
+            return null;
+        });
+        if (removed[0] != null) {
+            insertionOrder.remove(id);
+        }
+        return removed[0];
+    }
+
+    @Override
+    public Stream<Player> stream() {
+        return insertionOrder.stream()
+                .map(players::get)
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public int size() {
+        return players.size();
+    }
+
+    @Override
+    public void clear() {
+        players.clear();
+        insertionOrder.clear();
+        lastId.set(0);
+        listeners.forEach(PlayerStoreListener::onClear);
+    }
+
+    @Override
+    public void addListener(final PlayerStoreListener listener) {
+        listeners.add(listener);
+        stream().forEach(listener::onInsert);
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from {@code long} to non-negative {@code int} without boxing, using
+ * linear probing and backward-shift deletion. Not thread-safe; callers guard it.
+ */
+public class LongIntHashMap {
+    public static final int MISSING = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LongIntHashMap(final int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @return the value of the key, or {@link #MISSING}
+     */
+    public int get(final long key) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == MISSING) {
+                return MISSING;
+            }
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+    }
+
+    public void put(final long key, final int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative");
+        }
+        int slot = slotOf(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * @return the removed value, or {@link #MISSING}
+     */
+    public int remove(final long key) {
+        int slot = slotOf(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                final int removed = values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    /**
+     * Closes the gap left at {@code slot} by moving back later entries of the same probe run.
+     */
+    private void shiftBack(int slot) {
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (values[next] == MISSING) {
+                break;
+            }
+            final int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        values[slot] = MISSING;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int slot = slotOf(oldKeys[i]);
+                while (values[slot] != MISSING) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    private int slotOf(final long key) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        hash ^= hash >>> 32;
+        return (int) hash & mask;
+    }
+
+    private static int tableSizeFor(final int expectedSize) {
+        final int minimum = (int) Math.ceil(Math.max(2, expectedSize) / LOAD_FACTOR);
+        return Integer.highestOneBit(minimum - 1) << 1;
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final MetricsRegistry metricsRegistry;
+
+    @GetMapping("/metrics")
+    public Map<String, OperationMetricsSnapshot> getMetrics() {
+        return metricsRegistry.snapshot();
+    }
+}
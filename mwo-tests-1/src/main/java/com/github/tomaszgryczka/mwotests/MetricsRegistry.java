@@ -0,0 +1,27 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class MetricsRegistry {
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the metrics of the named operation, creating them on first use. Lookups of an
+     * existing name do not allocate, so callers may resolve the name on every call.
+     */
+    public OperationMetrics operation(final String name) {
+        final OperationMetrics metrics = operations.get(name);
+        return metrics != null ? metrics : operations.computeIfAbsent(name, key -> new OperationMetrics());
+    }
+
+    public Map<String, OperationMetricsSnapshot> snapshot() {
+        final Map<String, OperationMetricsSnapshot> snapshot = new TreeMap<>();
+        operations.forEach((name, metrics) -> snapshot.put(name, metrics.snapshot()));
+        return snapshot;
+    }
+}
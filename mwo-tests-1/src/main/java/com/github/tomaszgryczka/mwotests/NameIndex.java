@@ -0,0 +1,247 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Typeahead index over player first and last names. Every word of both names is folded to
+ * lower-case ASCII (so "Łukasz Żółć" is found by "lukasz zol") and kept in one sorted map
+ * together with the player id. All words sharing a prefix are adjacent in that map, so a
+ * prefix lookup is a seek followed by a walk over the matches only, as with a trie. Players are
+ * looked up in the store only for the matching entries.
+ */
+public class NameIndex implements PlayerStoreListener {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s\\-'.]+");
+    private static final Map<Character, String> UNDECOMPOSABLE = Map.of(
+            'ł', "l", 'đ', "d", 'ø', "o", 'ß', "ss", 'æ', "ae", 'œ', "oe", 'ı', "i");
+
+    private final NavigableSet<Key> keys = new ConcurrentSkipListSet<>();
+    private final LongFunction<Player> players;
+
+    public NameIndex(final LongFunction<Player> players) {
+        this.players = players;
+    }
+
+    /**
+     * Returns up to {@code limit} players with a name word starting with the first word of the
+     * query and, for every further query word, some name word starting with it. Matches are
+     * ordered by the matching word, so exact matches come before longer names.
+     * <p>
+     * Only the entries of the query word with the fewest entries are walked, so a short first
+     * word such as "a" followed by a surname does not visit every player whose name starts
+     * with "a".
+     */
+    public List<Player> findPlayers(final String query, final int limit) {
+        final List<String> prefixes = words(query);
+        if (prefixes.isEmpty()) {
+            return List.of();
+        }
+
+        final String rarest = rarestPrefix(prefixes);
+        if (rarest.equals(prefixes.get(0))) {
+            return findInOrder(prefixes, limit);
+        }
+
+        // The matches come ordered by the rarest word, so keep the first ones by the first word.
+        final String first = prefixes.get(0);
+        final Set<Long> seen = new HashSet<>();
+        final NavigableMap<Key, Player> matches = new TreeMap<>();
+        for (final Key key : prefixKeys(rarest)) {
+            if (!key.word.startsWith(rarest)) {
+                break;
+            }
+            if (!seen.add(key.id)) {
+                continue;
+            }
+            final Player player = players.apply(key.id);
+            if (player == null) {
+                continue;
+            }
+            final Set<String> words = wordsOf(player);
+            if (matchesAll(words, prefixes)) {
+                final String word = words.stream()
+                        .filter(candidate -> candidate.startsWith(first))
+                        .min(String::compareTo)
+                        .orElseThrow();
+                matches.put(new Key(word, key.id), player);
+                if (matches.size() > limit) {
+                    matches.pollLastEntry();
+                }
+            }
+        }
+        return new ArrayList<>(matches.values());
+    }
+
+    private List<Player> findInOrder(final List<String> prefixes, final int limit) {
+        final String prefix = prefixes.get(0);
+        final Set<Long> seen = new HashSet<>();
+        final List<Player> matches = new ArrayList<>(limit);
+        for (final Key key : prefixKeys(prefix)) {
+            if (!key.word.startsWith(prefix)) {
+                break;
+            }
+            if (!seen.add(key.id)) {
+                continue;
+            }
+            final Player player = players.apply(key.id);
+            if (player != null && (prefixes.size() == 1 || matchesAll(wordsOf(player), prefixes))) {
+                matches.add(player);
+                if (matches.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Picks the query word with the fewest entries. Longer words are counted first, as they
+     * are usually the rarest, and no count goes past the fewest entries seen so far.
+     */
+    private String rarestPrefix(final List<String> prefixes) {
+        if (prefixes.size() == 1) {
+            return prefixes.get(0);
+        }
+        final List<String> byLength = new ArrayList<>(prefixes);
+        byLength.sort(Comparator.comparingInt(String::length).reversed());
+        String rarest = null;
+        int fewest = Integer.MAX_VALUE;
+        for (final String prefix : byLength) {
+            final int count = countUpTo(prefix, fewest);
+            if (count < fewest || (count == fewest && prefix.equals(prefixes.get(0)))) {
+                rarest = prefix;
+                fewest = count;
+            }
+        }
+        return rarest;
+    }
+
+    private int countUpTo(final String prefix, final int limit) {
+        int count = 0;
+        for (final Key key : prefixKeys(prefix)) {
+            if (!key.word.startsWith(prefix) || ++count > limit) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private NavigableSet<Key> prefixKeys(final String prefix) {
+        return keys.tailSet(new Key(prefix, Long.MIN_VALUE), true);
+    }
+
+    @Override
+    public void onInsert(final Player player) {
+        add(player);
+    }
+
+    @Override
+    public void onReplace(final Player previous, final Player current) {
+        final Set<String> previousWords = wordsOf(previous);
+        final Set<String> currentWords = wordsOf(current);
+        for (final String word : previousWords) {
+            if (!currentWords.contains(word)) {
+                keys.remove(new Key(word, previous.getId()));
+            }
+        }
+        for (final String word : currentWords) {
+            keys.add(new Key(word, current.getId()));
+        }
+    }
+
+    @Override
+    public void onRemove(final Player player) {
+        for (final String word : wordsOf(player)) {
+            keys.remove(new Key(word, player.getId()));
+        }
+    }
+
+    @Override
+    public void onClear() {
+        keys.clear();
+    }
+
+    /**
+     * Lower-cases the text and strips diacritics, including letters such as "ł" that Unicode
+     * does not decompose.
+     */
+    static String fold(final String text) {
+        final String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        final String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        final StringBuilder folded = new StringBuilder(stripped.length());
+        for (int i = 0; i < stripped.length(); i++) {
+            final char c = stripped.charAt(i);
+            final String replacement = UNDECOMPOSABLE.get(c);
+            if (replacement != null) {
+                folded.append(replacement);
+            } else {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    private void add(final Player player) {
+        for (final String word : wordsOf(player)) {
+            keys.add(new Key(word, player.getId()));
+        }
+    }
+
+    private static boolean matchesAll(final Set<String> words, final List<String> prefixes) {
+        for (final String prefix : prefixes) {
+            if (words.stream().noneMatch(word -> word.startsWith(prefix))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> wordsOf(final Player player) {
+        final Set<String> words = new HashSet<>(words(player.getFirstname()));
+        words.addAll(words(player.getLastname()));
+        return words;
+    }
+
+    private static List<String> words(final String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        final List<String> words = new ArrayList<>(2);
+        for (final String word : WORD_SEPARATORS.split(fold(text).strip())) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final String word;
+        private final long id;
+
+        Key(final String word, final long id) {
+            this.word = Objects.requireNonNull(word);
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(final Key other) {
+            final int byWord = word.compareTo(other.word);
+            return byWord != 0 ? byWord : Long.compare(id, other.id);
+        }
+    }
+}
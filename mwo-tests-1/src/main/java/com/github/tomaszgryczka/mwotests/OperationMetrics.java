@@ -0,0 +1,85 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latency, call, error and in-flight counters for a single operation. A call is bracketed
+ * by {@link #start()} and {@link #stop(long, boolean)}, neither of which allocates, or
+ * wrapped with {@link #time(Supplier)} or {@link #record(Runnable)}.
+ */
+public class OperationMetrics {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public long start() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    public void stop(final long start, final boolean failed) {
+        final long elapsed = System.nanoTime() - start;
+        inFlight.decrement();
+        record(elapsed, failed);
+    }
+
+    /**
+     * Records a call whose in-flight tracking happened elsewhere.
+     */
+    public void record(final long elapsedNanos, final boolean failed) {
+        latency.record(elapsedNanos);
+        totalNanos.add(elapsedNanos);
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public void enter() {
+        inFlight.increment();
+    }
+
+    public void exit() {
+        inFlight.decrement();
+    }
+
+    /**
+     * Times the call, counting it as failed when it throws.
+     */
+    public <T> T time(final Supplier<T> call) {
+        final long start = start();
+        boolean failed = true;
+        try {
+            final T result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            stop(start, failed);
+        }
+    }
+
+    public void record(final Runnable call) {
+        time(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public OperationMetricsSnapshot snapshot() {
+        final LatencyHistogram.Snapshot histogram = latency.snapshot();
+        final long count = calls.sum();
+        return OperationMetricsSnapshot.builder()
+                .calls(count)
+                .errors(errors.sum())
+                .inFlight(inFlight.sum())
+                .meanNanos(count == 0 ? 0 : totalNanos.sum() / count)
+                .p50Nanos(histogram.valueAtPercentile(50))
+                .p99Nanos(histogram.valueAtPercentile(99))
+                .p999Nanos(histogram.valueAtPercentile(99.9))
+                .maxNanos(histogram.getMax())
+                .build();
+    }
+}
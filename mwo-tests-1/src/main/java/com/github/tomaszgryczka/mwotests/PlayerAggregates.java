@@ -0,0 +1,153 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Running headcounts and height/weight sums per country and per coach, kept in step with the
+ * store so that reading them never scans players. Every change costs O(1): an update moves the
+ * player's previous values out of its old groups and its current values into the new ones, in
+ * a single step when the group did not change. Group totals are immutable and swapped
+ * atomically, so a reader always sees a count that matches its sums.
+ */
+public class PlayerAggregates implements PlayerStoreListener {
+    private final Map<String, Totals> byCountry = new ConcurrentHashMap<>();
+    private final Map<Long, Totals> byCoach = new ConcurrentHashMap<>();
+
+    /**
+     * @return the totals of the country, or {@code null} when it has no players
+     */
+    public PlayerGroupStats countryStats(final String country) {
+        final Totals totals = country == null ? null : byCountry.get(country);
+        return totals == null ? null : totals.toStats();
+    }
+
+    /**
+     * @return the totals of the coach, or {@code null} when they have no players
+     */
+    public PlayerGroupStats coachStats(final long coachId) {
+        final Totals totals = byCoach.get(coachId);
+        return totals == null ? null : totals.toStats();
+    }
+
+    /**
+     * Copies the totals of every group, costing O(groups) rather than O(players).
+     */
+    public PlayerStats stats() {
+        final Map<String, PlayerGroupStats> countries = new TreeMap<>();
+        byCountry.forEach((country, totals) -> countries.put(country, totals.toStats()));
+        final Map<Long, PlayerGroupStats> coaches = new TreeMap<>();
+        byCoach.forEach((coachId, totals) -> coaches.put(coachId, totals.toStats()));
+        return PlayerStats.builder()
+                .countries(countries)
+                .coaches(coaches)
+                .build();
+    }
+
+    @Override
+    public void onInsert(final Player player) {
+        move(byCountry, null, player.getCountry(), null, player);
+        move(byCoach, null, player.getCoachId(), null, player);
+    }
+
+    @Override
+    public void onReplace(final Player previous, final Player current) {
+        move(byCountry, previous.getCountry(), current.getCountry(), previous, current);
+        move(byCoach, previous.getCoachId(), current.getCoachId(), previous, current);
+    }
+
+    @Override
+    public void onRemove(final Player player) {
+        move(byCountry, player.getCountry(), null, player, null);
+        move(byCoach, player.getCoachId(), null, player, null);
+    }
+
+    @Override
+    public void onClear() {
+        byCountry.clear();
+        byCoach.clear();
+    }
+
+    /**
+     * Takes {@code previous} out of the {@code from} group and adds {@code current} to the
+     * {@code to} group; either side may be {@code null}.
+     */
+    private static <K> void move(final Map<K, Totals> groups, final K from, final K to,
+                                 final Player previous, final Player current) {
+        if (from != null && Objects.equals(from, to)) {
+            groups.compute(from, (key, totals) -> Totals.orEmpty(totals).minus(previous).plus(current).orNull());
+            return;
+        }
+        if (from != null) {
+            groups.computeIfPresent(from, (key, totals) -> totals.minus(previous).orNull());
+        }
+        if (to != null) {
+            groups.compute(to, (key, totals) -> Totals.orEmpty(totals).plus(current).orNull());
+        }
+    }
+
+    private static final class Totals {
+        private static final Totals EMPTY = new Totals(0, 0, 0, 0, 0);
+
+        private final long count;
+        private final long heightCount;
+        private final double heightSum;
+        private final long weightCount;
+        private final double weightSum;
+
+        private Totals(final long count, final long heightCount, final double heightSum,
+                       final long weightCount, final double weightSum) {
+            this.count = count;
+            this.heightCount = heightCount;
+            this.heightSum = heightSum;
+            this.weightCount = weightCount;
+            this.weightSum = weightSum;
+        }
+
+        static Totals orEmpty(final Totals totals) {
+            return totals == null ? EMPTY : totals;
+        }
+
+        Totals plus(final Player player) {
+            return add(player, 1);
+        }
+
+        Totals minus(final Player player) {
+            return add(player, -1);
+        }
+
+        /**
+         * Drops the group once its last player left, which also discards rounding error
+         * accumulated by the sums.
+         */
+        Totals orNull() {
+            return count == 0 ? null : this;
+        }
+
+        PlayerGroupStats toStats() {
+            return PlayerGroupStats.builder()
+                    .count(count)
+                    .heightSum(heightSum)
+                    .weightSum(weightSum)
+                    .averageHeight(heightCount == 0 ? null : heightSum / heightCount)
+                    .averageWeight(weightCount == 0 ? null : weightSum / weightCount)
+                    .build();
+        }
+
+        private Totals add(final Player player, final int sign) {
+            if (player == null) {
+                return this;
+            }
+            final Double height = player.getHeight();
+            final Double weight = player.getWeight();
+            return new Totals(
+                    count + sign,
+                    height == null ? heightCount : heightCount + sign,
+                    height == null ? heightSum : heightSum + sign * height,
+                    weight == null ? weightCount : weightCount + sign,
+                    weight == null ? weightSum : weightSum + sign * weight);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.github.tomaszgryczka.mwotests;
+
+public enum PlayerAttribute {
+    DATE_OF_BIRTH,
+    HEIGHT,
+    WEIGHT
+}
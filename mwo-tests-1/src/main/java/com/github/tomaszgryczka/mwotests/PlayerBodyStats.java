@@ -0,0 +1,11 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PlayerBodyStats {
+    private final AttributeStats height;
+    private final AttributeStats weight;
+}
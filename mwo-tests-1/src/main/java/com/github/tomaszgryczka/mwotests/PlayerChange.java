@@ -0,0 +1,17 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One write to a player. {@code player} is the state after the write and {@code null} for
+ * deletions.
+ */
+@Data
+@Builder
+public class PlayerChange {
+    private final long version;
+    private final PlayerChangeType type;
+    private final long playerId;
+    private final Player player;
+}
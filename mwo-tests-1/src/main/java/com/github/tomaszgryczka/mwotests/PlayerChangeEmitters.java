@@ -0,0 +1,146 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent-Events subscribers of the change log. Every {@link PlayerChangeLog#STREAM_POLL_INTERVAL}
+ * a scheduler thread hands each idle subscriber to a bounded pool of sender threads, which
+ * read up to a page of the changes after the last version it received and send them. A poll
+ * therefore costs one log read per subscriber plus the events delivered, and writers never
+ * wait for subscribers. Blocking sends only hold up their own subscriber: one that is still
+ * sending after {@link #SEND_TIMEOUT} is dropped and gets a {@code resync} event once its
+ * connection drains, as does a subscriber that has fallen behind the log.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PlayerChangeEmitters implements DisposableBean {
+    public static final Duration SEND_TIMEOUT = Duration.ofSeconds(5);
+    private static final int MAX_SENDERS = 64;
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int LAGGING = 2;
+
+    private final PlayerService playerService;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "player-changes"));
+    private final ThreadPoolExecutor senders = new ThreadPoolExecutor(0, MAX_SENDERS, 1, TimeUnit.MINUTES,
+            new SynchronousQueue<>(), runnable -> daemon(runnable, "player-changes-sender"));
+
+    public PlayerChangeEmitters(final PlayerService playerService) {
+        this.playerService = playerService;
+        final long interval = PlayerChangeLog.STREAM_POLL_INTERVAL.toNanos();
+        scheduler.scheduleWithFixedDelay(this::publish, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param since the last version the client has seen, or {@code null} for the current one
+     */
+    public SseEmitter subscribe(final Long since) {
+        final SseEmitter emitter = new SseEmitter(0L);
+        final Subscription subscription = new Subscription(emitter,
+                since == null ? playerService.getChangeVersion() : since);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onError(error -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        return emitter;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+    }
+
+    private void publish() {
+        final long now = System.nanoTime();
+        for (final Subscription subscription : subscriptions) {
+            if (!subscription.state.compareAndSet(IDLE, SENDING)) {
+                if (now - subscription.sendingSince > SEND_TIMEOUT.toNanos()
+                        && subscription.state.compareAndSet(SENDING, LAGGING)) {
+                    subscriptions.remove(subscription);
+                }
+                continue;
+            }
+            subscription.sendingSince = now;
+            try {
+                senders.execute(subscription::send);
+            } catch (RejectedExecutionException e) {
+                // Every sender is busy; the subscriber is picked up again on the next poll.
+                subscription.state.set(IDLE);
+            }
+        }
+    }
+
+    private static Thread daemon(final Runnable runnable, final String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private class Subscription {
+        private final SseEmitter emitter;
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private long version;
+        private long sendingSince;
+
+        Subscription(final SseEmitter emitter, final long version) {
+            this.emitter = emitter;
+            this.version = version;
+        }
+
+        void send() {
+            try {
+                if (publish() && !state.compareAndSet(SENDING, IDLE)) {
+                    emitter.send(SseEmitter.event().name("resync").data(PlayerChanges.builder()
+                            .changes(List.of())
+                            .version(playerService.getChangeVersion())
+                            .resync(true)
+                            .build()));
+                    emitter.complete();
+                }
+            } catch (IOException | RuntimeException e) {
+                subscriptions.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        /**
+         * @return {@code false} when the subscriber was sent a {@code resync} and disconnected
+         */
+        boolean publish() throws IOException {
+            final PlayerChanges changes = playerService.findChanges(version, PlayerService.MAX_PAGE_SIZE);
+            if (changes.isResync()) {
+                subscriptions.remove(this);
+                emitter.send(SseEmitter.event().name("resync").data(changes));
+                emitter.complete();
+                return false;
+            }
+            for (final PlayerChange change : changes.getChanges()) {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getVersion()))
+                        .name("change")
+                        .data(change));
+            }
+            version = changes.getVersion();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stamps every write to the store with the next version and keeps the latest
+ * {@code capacity} changes in a ring buffer, so a client that knows the version it last saw
+ * can catch up in O(changes) instead of reloading the players. Being a store listener, the log
+ * records the writes to one player in the order the store applied them.
+ * <p>
+ * The log also remembers the version of the last change of every stored player, which
+ * serves as its entity tag. Versions start from the current time in microseconds, so they
+ * keep growing across restarts as long as the previous run averaged under a million writes
+ * per second: versions handed out before a restart are never reused, and clients that
+ * synced before it are told to resync.
+ * <p>
+ * Players already stored when the log is registered are recorded as created. Clearing the
+ * store empties the log, so every client has to resync.
+ */
+public class PlayerChangeLog implements PlayerStoreListener {
+    /**
+     * How often live change streams look for new changes.
+     */
+    public static final Duration STREAM_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private final PlayerChange[] changes;
+    private final Map<Long, Long> playerVersions = new ConcurrentHashMap<>();
+    private long version;
+    private long firstVersion;
+
+    public PlayerChangeLog(final int capacity) {
+        this(capacity, System.currentTimeMillis() * 1000);
+    }
+
+    public PlayerChangeLog(final int capacity, final long initialVersion) {
+        this.changes = new PlayerChange[capacity];
+        this.version = initialVersion;
+        this.firstVersion = initialVersion + 1;
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * @return the version of the player's last change, or {@code 0} when it is not stored
+     */
+    public long playerVersion(final long playerId) {
+        final Long playerVersion = playerVersions.get(playerId);
+        return playerVersion == null ? 0 : playerVersion;
+    }
+
+    /**
+     * Returns up to {@code limit} changes with versions greater than {@code since}.
+     */
+    public synchronized PlayerChanges changesSince(final long since, final int limit) {
+        if (since < firstVersion - 1 || since > version) {
+            return PlayerChanges.builder()
+                    .changes(List.of())
+                    .version(version)
+                    .resync(true)
+                    .build();
+        }
+
+        final long last = Math.min(version, since + limit);
+        final List<PlayerChange> page = new ArrayList<>((int) (last - since));
+        for (long v = since + 1; v <= last; v++) {
+            page.add(changes[slot(v)]);
+        }
+        return PlayerChanges.builder()
+                .changes(page)
+                .version(last)
+                .more(last < version)
+                .build();
+    }
+
+    @Override
+    public void onInsert(final Player player) {
+        append(PlayerChangeType.CREATED, player.getId(), player);
+    }
+
+    @Override
+    public void onReplace(final Player previous, final Player current) {
+        append(PlayerChangeType.UPDATED, current.getId(), current);
+    }
+
+    @Override
+    public void onRemove(final Player player) {
+        append(PlayerChangeType.DELETED, player.getId(), null);
+    }
+
+    @Override
+    public synchronized void onClear() {
+        version++;
+        firstVersion = version + 1;
+        Arrays.fill(changes, null);
+        playerVersions.clear();
+    }
+
+    private synchronized void append(final PlayerChangeType type, final long playerId, final Player player) {
+        final long next = ++version;
+        changes[slot(next)] = PlayerChange.builder()
+                .version(next)
+                .type(type)
+                .playerId(playerId)
+                .player(player)
+                .build();
+        if (type == PlayerChangeType.DELETED) {
+            playerVersions.remove(playerId);
+        } else {
+            playerVersions.put(playerId, next);
+        }
+        if (next - firstVersion >= changes.length) {
+            firstVersion = next - changes.length + 1;
+        }
+    }
+
+    private int slot(final long version) {
+        return (int) (version % changes.length);
+    }
+}
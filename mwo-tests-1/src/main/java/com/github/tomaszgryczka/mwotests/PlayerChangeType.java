@@ -0,0 +1,7 @@
+package com.github.tomaszgryczka.mwotests;
+
+public enum PlayerChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
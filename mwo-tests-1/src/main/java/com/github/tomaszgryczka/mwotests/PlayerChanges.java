@@ -0,0 +1,20 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Changes after a client's version, in version order. {@code version} is the one to ask from
+ * next. When {@code resync} is set the log no longer reaches back to the client's version:
+ * the client has to reload the players and continue from {@code version}.
+ */
+@Data
+@Builder
+public class PlayerChanges {
+    private final List<PlayerChange> changes;
+    private final long version;
+    private final boolean more;
+    private final boolean resync;
+}
@@ -1,21 +1,59 @@
 package com.github.tomaszgryczka.mwotests;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
 
+/**
+ * The {@code /players} API. Single players and country listings carry strong entity tags
+ * derived from player versions, so {@code If-None-Match} is answered with 304 before anything
+ * is serialised, and {@code PUT} honours {@code If-Match} for optimistic concurrency. JSON and
+ * Smile bodies of the same version get different tags and tagged responses vary by
+ * {@code Accept}, so caches never hand one representation out for the other.
+ */
 @RestController
 @RequestMapping("/players")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class PlayerController {
+    private static final int STREAM_FLUSH_INTERVAL = 256;
 
     private final PlayerService playerService;
+    private final PlayerImporter playerImporter;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+    private final PlayerChangeEmitters changeEmitters;
 
     @GetMapping("/{playerId}")
-    public Player getPlayer(@PathVariable Long playerId) {
-        return playerService.findPlayerById(playerId);
+    public Player getPlayer(@PathVariable Long playerId, ServletWebRequest request) {
+        final Versioned<Player> player = playerService.findVersionedPlayerById(playerId);
+        if (player == null || request.checkNotModified(eTag(player.getVersion(), request))) {
+            return null;
+        }
+        return player.getValue();
     }
 
     @PostMapping
@@ -24,9 +62,38 @@ public class PlayerController {
         return playerService.save(playerRequest);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public PlayerImportSummary importPlayersNdjson(InputStream body) throws IOException {
+        return playerImporter.importNdjson(body);
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public PlayerImportSummary importPlayers(InputStream body) throws IOException {
+        return playerImporter.importJsonArray(body);
+    }
+
+    @PostMapping(value = "/bulk", consumes = SmileConfiguration.APPLICATION_SMILE_VALUE)
+    public PlayerImportSummary importPlayersSmile(InputStream body) throws IOException {
+        return playerImporter.importArray(smileConverter.getObjectMapper(), body);
+    }
+
+    /**
+     * Replaces the player. With {@code If-Match} the write only happens while the player
+     * still has one of the given entity tags, or exists at all for {@code *}, and otherwise
+     * fails with 412.
+     */
     @PutMapping
-    public Player updatePlayer(@RequestBody Player player) {
-        return playerService.setPlayerInfoById(player);
+    public ResponseEntity<Player> updatePlayer(@RequestBody Player player,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        final Versioned<Player> updated = playerService.updatePlayer(player, ifMatch == null ? null : matching(ifMatch));
+        if (updated == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag(updated.getVersion(), acceptsSmile(accept)))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(updated.getValue());
     }
 
     @DeleteMapping("/{playerId}")
@@ -36,7 +103,175 @@ public class PlayerController {
     }
 
     @GetMapping("/filter/{country}")
-    public List<Player> filterByCountry(@PathVariable String country) {
-        return playerService.findPlayersByCountry(country);
+    public List<Player> filterByCountry(@PathVariable String country, ServletWebRequest request) {
+        final Versioned<List<Player>> players = playerService.findVersionedPlayersByCountry(country);
+        return request.checkNotModified(eTag(players.getVersion(), request)) ? null : players.getValue();
+    }
+
+    @GetMapping(value = "/filter/{country}", params = "limit")
+    public PlayerPage filterByCountry(@PathVariable String country,
+                                      @RequestParam(required = false) Long cursor,
+                                      @RequestParam int limit,
+                                      ServletWebRequest request) {
+        final Versioned<PlayerPage> page = playerService.findVersionedPlayersByCountry(country, cursor, limit);
+        return request.checkNotModified(eTag(page.getVersion(), request)) ? null : page.getValue();
+    }
+
+    @GetMapping("/coach/{coachId}")
+    public PlayerPage findPlayersByCoach(@PathVariable long coachId,
+                                         @RequestParam(required = false) Long cursor,
+                                         @RequestParam(defaultValue = "100") int limit) {
+        return playerService.findPlayersByCoach(coachId, cursor, limit);
+    }
+
+    @GetMapping("/range")
+    public List<Player> findPlayersInRange(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornFrom,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornTo,
+                                           @RequestParam(required = false) Double minHeight,
+                                           @RequestParam(required = false) Double maxHeight,
+                                           @RequestParam(required = false) Double minWeight,
+                                           @RequestParam(required = false) Double maxWeight,
+                                           @RequestParam(required = false) PlayerAttribute sort,
+                                           @RequestParam(defaultValue = "0") int offset,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        return playerService.findPlayersInRange(PlayerRangeQuery.builder()
+                .bornFrom(bornFrom)
+                .bornTo(bornTo)
+                .minHeight(minHeight)
+                .maxHeight(maxHeight)
+                .minWeight(minWeight)
+                .maxWeight(maxWeight)
+                .sort(sort)
+                .offset(Math.max(0, offset))
+                .limit(limit)
+                .build());
+    }
+
+    @GetMapping("/search")
+    public List<Player> searchPlayers(@RequestParam String q,
+                                      @RequestParam(defaultValue = "10") int limit) {
+        return playerService.searchPlayersByName(q, limit);
+    }
+
+    @GetMapping("/analytics/body")
+    public PlayerBodyStats getBodyStats() {
+        return playerService.getBodyStats();
+    }
+
+    @GetMapping("/analytics/age-distribution")
+    public Map<String, SortedMap<Integer, Long>> getAgeDistribution() {
+        return playerService.getAgeDistributionByCountry();
+    }
+
+    @GetMapping("/stats")
+    public PlayerStats getStats() {
+        return playerService.getStats();
+    }
+
+    @GetMapping("/stats/country/{country}")
+    public PlayerGroupStats getCountryStats(@PathVariable String country) {
+        return playerService.getCountryStats(country);
+    }
+
+    @GetMapping("/stats/coach/{coachId}")
+    public PlayerGroupStats getCoachStats(@PathVariable long coachId) {
+        return playerService.getCoachStats(coachId);
+    }
+
+    /**
+     * Changes after version {@code since}. Without {@code since} only the current version is
+     * returned: a client reads it, loads the players it caches and then asks for the changes
+     * after it.
+     */
+    @GetMapping("/changes")
+    public PlayerChanges findChanges(@RequestParam(required = false) Long since,
+                                     @RequestParam(defaultValue = "1000") int limit) {
+        return playerService.findChanges(since, limit);
+    }
+
+    /**
+     * Live stream of the changes after {@code since}, or after the current version, as
+     * Server-Sent Events whose ids are change versions, so a reconnecting client resumes from
+     * its {@code Last-Event-ID}.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeEmitters.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    @GetMapping(value = "/filter/{country}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByCountry(@PathVariable String country,
+                                                                 @RequestParam(required = false) Long cursor) {
+        final StreamingResponseBody body = outputStream -> {
+            try (Stream<Player> players = playerService.streamPlayersByCountry(country, cursor);
+                 SequenceWriter writer = objectMapper.writerFor(Player.class)
+                         .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                         .withRootValueSeparator("\n")
+                         .writeValues(outputStream)) {
+                final Iterator<Player> iterator = players.iterator();
+                for (int written = 1; iterator.hasNext(); written++) {
+                    writer.write(iterator.next());
+                    if (written % STREAM_FLUSH_INTERVAL == 0) {
+                        writer.flush();
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Entity tag of the representation the request negotiates, marking the response as
+     * varying by {@code Accept}.
+     */
+    private static String eTag(final long version, final ServletWebRequest request) {
+        if (request.getResponse() != null) {
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return eTag(version, acceptsSmile(request.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    private static String eTag(final long version, final boolean smile) {
+        return '"' + Long.toHexString(version) + (smile ? "-smile" : "") + '"';
+    }
+
+    /**
+     * Whether content negotiation picks Smile over JSON, which also wins for wildcards.
+     */
+    private static boolean acceptsSmile(final String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            final List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(mediaTypes);
+            for (final MediaType mediaType : mediaTypes) {
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return false;
+                }
+                if (mediaType.isCompatibleWith(SmileConfiguration.APPLICATION_SMILE)) {
+                    return true;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Accepts the versions behind the strong entity tags of an {@code If-Match} header, of
+     * either representation, or any version for {@code *}. Weak and malformed tags never match.
+     */
+    private static LongPredicate matching(final String ifMatch) {
+        if (ifMatch.trim().equals("*")) {
+            return version -> true;
+        }
+        final List<String> tags = List.of(ifMatch.split(","));
+        return version -> tags.stream().map(String::trim)
+                .anyMatch(tag -> tag.equals(eTag(version, false)) || tag.equals(eTag(version, true)));
     }
 }
@@ -0,0 +1,18 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Headcount and body measurement totals of one group of players. The averages only cover
+ * players with a value and are {@code null} when no player has one.
+ */
+@Data
+@Builder
+public class PlayerGroupStats {
+    private final long count;
+    private final double heightSum;
+    private final double weightSum;
+    private final Double averageHeight;
+    private final Double averageWeight;
+}
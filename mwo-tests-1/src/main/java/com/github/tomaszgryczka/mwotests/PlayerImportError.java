@@ -0,0 +1,14 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PlayerImportError {
+    /**
+     * Line number for NDJSON bodies, element position for JSON arrays; both start at 1.
+     */
+    private final long record;
+    private final String message;
+}
@@ -0,0 +1,14 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PlayerImportSummary {
+    private final long imported;
+    private final long failed;
+    private final List<PlayerImportError> errors;
+}
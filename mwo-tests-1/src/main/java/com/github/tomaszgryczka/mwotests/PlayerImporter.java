@@ -0,0 +1,145 @@
+package com.github.tomaszgryczka.mwotests;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads player records from a request body one at a time and saves them in batches,
+ * so the whole body is never held in memory.
+ */
+@Component
+@RequiredArgsConstructor
+public class PlayerImporter {
+    public static final int BATCH_SIZE = 1000;
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final PlayerService playerService;
+    private final ObjectMapper objectMapper;
+
+    public PlayerImportSummary importNdjson(final InputStream body) throws IOException {
+        final ObjectReader reader = objectMapper.readerFor(PlayerRequest.class);
+        final Batch batch = new Batch();
+
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(lineNumber, reader.readValue(line));
+                } catch (JsonProcessingException e) {
+                    batch.reject(lineNumber, e.getOriginalMessage());
+                }
+            }
+        }
+
+        return batch.finish();
+    }
+
+    public PlayerImportSummary importJsonArray(final InputStream body) throws IOException {
+        return importArray(objectMapper, body);
+    }
+
+    /**
+     * Imports an array of players encoded in the format of the given mapper, such as the
+     * Smile mapper of {@link SmileConfiguration}.
+     */
+    public PlayerImportSummary importArray(final ObjectMapper mapper, final InputStream body) throws IOException {
+        final Batch batch = new Batch();
+
+        try (JsonParser parser = mapper.getFactory().createParser(body)) {
+            long position = 0;
+            try {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    batch.reject(position, "Expected an array of players");
+                    return batch.finish();
+                }
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    return batch.finish();
+                }
+                final MappingIterator<PlayerRequest> records = mapper.readerFor(PlayerRequest.class).readValues(parser);
+                while (records.hasNextValue()) {
+                    position++;
+                    final boolean empty = parser.hasToken(JsonToken.VALUE_NULL);
+                    try {
+                        batch.add(position, records.nextValue());
+                    } catch (JsonMappingException e) {
+                        // The iterator skips the rest of a record it could not bind, so the next one
+                        // is still read. It refuses null records, which NDJSON reports as empty.
+                        if (empty) {
+                            batch.add(position, null);
+                        } else {
+                            batch.reject(position, e.getOriginalMessage());
+                        }
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                batch.reject(position, e.getOriginalMessage());
+            }
+        }
+
+        return batch.finish();
+    }
+
+    private class Batch {
+        private final List<PlayerRequest> pending = new ArrayList<>(BATCH_SIZE);
+        private final List<PlayerImportError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        void add(final long record, final PlayerRequest playerRequest) {
+            if (playerRequest == null) {
+                reject(record, "Empty player record");
+            } else if (playerRequest.getCoachId() == null) {
+                reject(record, "coachId is required");
+            } else {
+                pending.add(playerRequest);
+                if (pending.size() == BATCH_SIZE) {
+                    flush();
+                }
+            }
+        }
+
+        void reject(final long record, final String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(PlayerImportError.builder()
+                        .record(record)
+                        .message(message)
+                        .build());
+            }
+        }
+
+        PlayerImportSummary finish() {
+            flush();
+            return PlayerImportSummary.builder()
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(errors)
+                    .build();
+        }
+
+        private void flush() {
+            imported += playerService.saveAll(pending).size();
+            pending.clear();
+        }
+    }
+}
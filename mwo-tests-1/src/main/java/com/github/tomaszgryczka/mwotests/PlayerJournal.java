@@ -0,0 +1,435 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead log and snapshots for a {@link PlayerStore}.
+ * <p>
+ * Mutations are encoded into an in-memory buffer by the store listener, which never touches
+ * the disk, and a background thread writes and fsyncs that buffer every {@code fsyncInterval}
+ * (group commit). Writers call {@link #awaitDurable()} once they have released their locks,
+ * so a write is acknowledged only after the batch holding it is on disk. The first IO error
+ * fails the journal for good: a partly written batch cannot be retried safely, so later
+ * writes are rejected instead. Every {@code snapshotInterval} the log is rotated to a new segment and
+ * the store is dumped to a compact snapshot; segments older than the one preceding the
+ * latest snapshot are then deleted. Because every record carries full player state, replay
+ * is idempotent and recovery is "latest snapshot, then the segment before it and all later
+ * ones", which also covers writes that raced with the snapshot. Id allocations are logged
+ * too and the snapshot header carries the id sequence, so ids of deleted players are not
+ * handed out again after a restart.
+ */
+public class PlayerJournal implements PlayerStoreListener, Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PlayerJournal.class);
+
+    private static final Pattern SEGMENT = Pattern.compile("players-(\\d{16})\\.wal");
+    private static final Pattern SNAPSHOT = Pattern.compile("players-(\\d{16})\\.snapshot");
+    private static final int SNAPSHOT_MAGIC = 0x504c5953;
+    private static final int SNAPSHOT_WITH_LAST_ID_MAGIC = 0x504c5932;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int SNAPSHOT_BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+    private final Duration fsyncInterval;
+    private final Duration snapshotInterval;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "player-journal-writer"));
+    private final ScheduledExecutorService snapshotter = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "player-journal-snapshot"));
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+
+    private final Object bufferLock = new Object();
+    private final Object writeLock = new Object();
+    private final Object durableLock = new Object();
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    private ByteBuffer active = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer flushing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long appended;
+    private volatile long durable;
+    private volatile IOException failure;
+    private FileChannel segment;
+    private long segmentNumber;
+    private volatile boolean replaying;
+    private PlayerStore store;
+
+    public PlayerJournal(final Path directory, final Duration fsyncInterval, final Duration snapshotInterval) {
+        this.directory = directory;
+        this.fsyncInterval = fsyncInterval;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Restores the latest snapshot and log tail into the given, empty store, then starts
+     * journaling its mutations.
+     */
+    public void open(final PlayerStore playerStore) throws IOException {
+        Files.createDirectories(directory);
+        this.store = playerStore;
+
+        replaying = true;
+        playerStore.addListener(this);
+        try {
+            segmentNumber = recover(playerStore);
+        } finally {
+            replaying = false;
+        }
+
+        synchronized (writeLock) {
+            segment = openSegment(++segmentNumber);
+        }
+        writer.scheduleWithFixedDelay(this::flushQuietly,
+                fsyncInterval.toMillis(), fsyncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly,
+                snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Player journal opened in {} with {} players", directory, playerStore.size());
+    }
+
+    @Override
+    public void onInsert(final Player player) {
+        append(buffer -> PlayerRecordCodec.writePut(buffer, player));
+    }
+
+    @Override
+    public void onReplace(final Player previous, final Player current) {
+        append(buffer -> PlayerRecordCodec.writePut(buffer, current));
+    }
+
+    @Override
+    public void onRemove(final Player player) {
+        append(buffer -> PlayerRecordCodec.writeRemove(buffer, player.getId()));
+    }
+
+    @Override
+    public void onClear() {
+        append(PlayerRecordCodec::writeClear);
+    }
+
+    @Override
+    public void onReserveIds(final long lastId) {
+        append(buffer -> PlayerRecordCodec.writeLastId(buffer, lastId));
+    }
+
+    /**
+     * Blocks until every record appended by the calling thread has been written and fsynced.
+     * Writers call it after releasing their locks, so waiting for the disk never holds up
+     * other players' writes.
+     *
+     * @throws UncheckedIOException when the journal failed before those records were synced
+     */
+    public void awaitDurable() {
+        final long target = lastAppended.get()[0];
+        if (durable >= target) {
+            return;
+        }
+        synchronized (durableLock) {
+            while (durable < target) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Player journal failed", failure);
+                }
+                try {
+                    durableLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the player journal", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rotates the log and writes a snapshot of the store; normally run on a schedule.
+     */
+    public void snapshot() throws IOException {
+        final long snapshotNumber;
+        try {
+            snapshotNumber = writer.submit(this::rotate).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rotating the player log", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not rotate the player log", e.getCause());
+        }
+
+        final Path temporary = directory.resolve("players.snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_SIZE);
+            buffer.putInt(SNAPSHOT_WITH_LAST_ID_MAGIC);
+            buffer.putLong(store.lastId());
+            try (Stream<Player> players = store.stream()) {
+                players.forEach(player -> {
+                    if (buffer.remaining() < SNAPSHOT_BUFFER_SIZE / 2) {
+                        drain(buffer, channel);
+                    }
+                    PlayerRecordCodec.writePut(buffer, player);
+                });
+            }
+            drain(buffer, channel);
+            channel.force(true);
+        }
+        Files.move(temporary, snapshotPath(snapshotNumber), StandardCopyOption.ATOMIC_MOVE);
+
+        deleteFilesBefore(SNAPSHOT, snapshotNumber);
+        deleteFilesBefore(SEGMENT, snapshotNumber - 1);
+        logger.info("Player snapshot {} written", snapshotNumber);
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotter.shutdownNow();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(fsyncInterval.toMillis() + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            if (segment != null) {
+                if (failure == null) {
+                    flush();
+                }
+                segment.close();
+                segment = null;
+            }
+        }
+    }
+
+    private long recover(final PlayerStore playerStore) throws IOException {
+        final List<Long> snapshots = fileNumbers(SNAPSHOT);
+        final List<Long> segments = fileNumbers(SEGMENT);
+        final long latestSnapshot = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+
+        final PlayerRecordCodec.RecordHandler replay = new PlayerRecordCodec.RecordHandler() {
+            @Override
+            public void onPut(final Player player) {
+                playerStore.insert(player);
+            }
+
+            @Override
+            public void onRemove(final long id) {
+                playerStore.remove(id);
+            }
+
+            @Override
+            public void onClear() {
+                playerStore.clear();
+            }
+
+            @Override
+            public void onLastId(final long lastId) {
+                playerStore.advanceIds(lastId);
+            }
+        };
+
+        if (latestSnapshot > 0) {
+            readMapped(snapshotPath(latestSnapshot), buffer -> {
+                final int magic = buffer.getInt();
+                if (magic == SNAPSHOT_WITH_LAST_ID_MAGIC) {
+                    playerStore.advanceIds(buffer.getLong());
+                } else if (magic != SNAPSHOT_MAGIC) {
+                    throw new IllegalStateException("Not a player snapshot: " + snapshotPath(latestSnapshot));
+                }
+                PlayerRecordCodec.readFrames(buffer, replay);
+            });
+        }
+        for (final long number : segments) {
+            if (number >= latestSnapshot - 1) {
+                readMapped(segmentPath(number), buffer -> {
+                    final int end = PlayerRecordCodec.readFrames(buffer, replay);
+                    if (end < buffer.limit()) {
+                        logger.warn("Ignoring {} bytes of damaged tail in {}", buffer.limit() - end, segmentPath(number));
+                    }
+                });
+            }
+        }
+
+        final long lastSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        return Math.max(lastSegment, latestSnapshot);
+    }
+
+    private void append(final Consumer<ByteBuffer> encoder) {
+        if (replaying) {
+            return;
+        }
+
+        ByteBuffer record = scratch.get().clear();
+        while (true) {
+            try {
+                encoder.accept(record);
+                break;
+            } catch (BufferOverflowException e) {
+                record = ByteBuffer.allocate(record.capacity() * 2);
+                scratch.set(record);
+            }
+        }
+        record.flip();
+
+        synchronized (bufferLock) {
+            if (failure != null) {
+                throw new IllegalStateException("Player journal failed, writes are not accepted", failure);
+            }
+            if (active.remaining() < record.remaining()) {
+                // Outgrow the buffer rather than flush here: the caller holds store locks.
+                final ByteBuffer larger = ByteBuffer.allocateDirect(
+                        Math.max(active.capacity() * 2, active.position() + record.remaining()));
+                larger.put(active.flip());
+                active = larger;
+            }
+            appended += record.remaining();
+            active.put(record);
+            lastAppended.get()[0] = appended;
+        }
+    }
+
+    private void flush() throws IOException {
+        synchronized (writeLock) {
+            if (segment == null) {
+                throw new IllegalStateException("Player journal is not open");
+            }
+            if (failure != null) {
+                throw new IOException("Player journal failed earlier", failure);
+            }
+            final long batchEnd;
+            synchronized (bufferLock) {
+                final ByteBuffer filled = active;
+                active = flushing;
+                flushing = filled;
+                batchEnd = appended;
+            }
+            flushing.flip();
+            try {
+                if (flushing.hasRemaining()) {
+                    while (flushing.hasRemaining()) {
+                        segment.write(flushing);
+                    }
+                    segment.force(false);
+                }
+            } catch (IOException e) {
+                fail(e);
+                throw e;
+            } finally {
+                flushing = flushing.capacity() > BUFFER_SIZE ? ByteBuffer.allocateDirect(BUFFER_SIZE) : flushing.clear();
+            }
+            synchronized (durableLock) {
+                durable = batchEnd;
+                durableLock.notifyAll();
+            }
+        }
+    }
+
+    private void fail(final IOException e) {
+        failure = e;
+        synchronized (durableLock) {
+            durableLock.notifyAll();
+        }
+    }
+
+    private long rotate() throws IOException {
+        synchronized (writeLock) {
+            flush();
+            segment.close();
+            segment = openSegment(++segmentNumber);
+            return segmentNumber;
+        }
+    }
+
+    private void flushQuietly() {
+        if (failure != null) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.error("Could not flush the player log", e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not write a player snapshot", e);
+        }
+    }
+
+    private FileChannel openSegment(final long number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private void readMapped(final Path path, final Consumer<ByteBuffer> reader) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Player journal file larger than 2 GB: " + path);
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            reader.accept(buffer);
+        }
+    }
+
+    private void drain(final ByteBuffer buffer, final FileChannel channel) {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private List<Long> fileNumbers(final Pattern pattern) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> pattern.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void deleteFilesBefore(final Pattern pattern, final long number) throws IOException {
+        for (final long older : fileNumbers(pattern)) {
+            if (older < number) {
+                Files.deleteIfExists(pattern == SNAPSHOT ? snapshotPath(older) : segmentPath(older));
+            }
+        }
+    }
+
+    private Path segmentPath(final long number) {
+        return directory.resolve(String.format("players-%016d.wal", number));
+    }
+
+    private Path snapshotPath(final long number) {
+        return directory.resolve(String.format("players-%016d.snapshot", number));
+    }
+
+    private static Thread daemon(final Runnable runnable, final String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
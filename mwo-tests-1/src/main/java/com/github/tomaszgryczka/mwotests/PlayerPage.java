@@ -0,0 +1,13 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class PlayerPage {
+    private final List<Player> players;
+    private final Long nextCursor;
+}
@@ -0,0 +1,35 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Enables the snapshot + write-ahead-log player store when {@code players.persistence.directory}
+ * is set; otherwise {@link PlayerService} keeps players on the heap only. Writes return once
+ * synced, so {@code players.persistence.fsync-interval} is the group-commit window they wait on.
+ */
+@Configuration
+@ConditionalOnProperty("players.persistence.directory")
+public class PlayerPersistenceConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public PlayerJournal playerJournal(@Value("${players.persistence.directory}") final Path directory,
+                                       @Value("${players.persistence.fsync-interval:10ms}") final Duration fsyncInterval,
+                                       @Value("${players.persistence.snapshot-interval:5m}") final Duration snapshotInterval) {
+        return new PlayerJournal(directory, fsyncInterval, snapshotInterval);
+    }
+
+    @Bean
+    public PlayerStore playerStore(final PlayerJournal playerJournal,
+                                   @Value("${players.storage:heap}") final String storage) throws IOException {
+        final PlayerStore playerStore = "columnar".equals(storage) ? new ColumnarPlayerStore() : new InMemoryPlayerStore();
+        playerJournal.open(playerStore);
+        return playerStore;
+    }
+}
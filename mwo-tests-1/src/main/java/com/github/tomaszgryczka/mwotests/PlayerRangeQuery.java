@@ -0,0 +1,55 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Combined range predicates over indexed player attributes. Bounds are inclusive and a
+ * {@code null} bound is open. Results are ordered by {@link #sort}; when it is not set they
+ * are ordered by the first constrained attribute, in declaration order. When the sort
+ * attribute itself is unconstrained, players without a value for it come last, and the walk
+ * covers every player, so a page costs O(n) in the worst case rather than O(offset + limit).
+ */
+@Data
+@Builder
+public class PlayerRangeQuery {
+    private final LocalDate bornFrom;
+    private final LocalDate bornTo;
+    private final Double minHeight;
+    private final Double maxHeight;
+    private final Double minWeight;
+    private final Double maxWeight;
+    private final PlayerAttribute sort;
+    private final int offset;
+    private final int limit;
+
+    public boolean matches(final Player player) {
+        return inRange(player.getDateOfBirth(), bornFrom, bornTo)
+                && inRange(player.getHeight(), minHeight, maxHeight)
+                && inRange(player.getWeight(), minWeight, maxWeight);
+    }
+
+    public PlayerAttribute sortAttribute() {
+        if (sort != null) {
+            return sort;
+        } else if (bornFrom != null || bornTo != null) {
+            return PlayerAttribute.DATE_OF_BIRTH;
+        } else if (minHeight != null || maxHeight != null) {
+            return PlayerAttribute.HEIGHT;
+        } else if (minWeight != null || maxWeight != null) {
+            return PlayerAttribute.WEIGHT;
+        }
+        return PlayerAttribute.DATE_OF_BIRTH;
+    }
+
+    private static <V extends Comparable<? super V>> boolean inRange(final V value, final V from, final V to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        return value != null
+                && (from == null || value.compareTo(from) >= 0)
+                && (to == null || value.compareTo(to) <= 0);
+    }
+}
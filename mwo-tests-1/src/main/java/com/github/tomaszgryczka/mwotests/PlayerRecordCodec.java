@@ -0,0 +1,180 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary encoding shared by the player write-ahead log and snapshots. Every record is framed
+ * as {@code [int length][int crc32c][payload]} so that a torn tail left by a crash is detected
+ * and ignored on recovery.
+ */
+public final class PlayerRecordCodec {
+    public static final byte PUT = 1;
+    public static final byte REMOVE = 2;
+    public static final byte CLEAR = 3;
+    public static final byte LAST_ID = 4;
+
+    public static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final int HAS_DATE_OF_BIRTH = 1;
+    private static final int HAS_HEIGHT = 1 << 1;
+    private static final int HAS_WEIGHT = 1 << 2;
+
+    private PlayerRecordCodec() {
+    }
+
+    /**
+     * Receives the records decoded by {@link #readFrames(ByteBuffer, RecordHandler)}.
+     */
+    public interface RecordHandler {
+        void onPut(Player player);
+
+        void onRemove(long id);
+
+        void onClear();
+
+        void onLastId(long lastId);
+    }
+
+    public static void writePut(final ByteBuffer target, final Player player) {
+        final int frameStart = beginFrame(target);
+        target.put(PUT);
+        target.putLong(player.getId());
+        target.putLong(player.getCoachId());
+        target.put((byte) ((player.getDateOfBirth() != null ? HAS_DATE_OF_BIRTH : 0)
+                | (player.getHeight() != null ? HAS_HEIGHT : 0)
+                | (player.getWeight() != null ? HAS_WEIGHT : 0)));
+        if (player.getDateOfBirth() != null) {
+            target.putLong(player.getDateOfBirth().toEpochDay());
+        }
+        if (player.getHeight() != null) {
+            target.putDouble(player.getHeight());
+        }
+        if (player.getWeight() != null) {
+            target.putDouble(player.getWeight());
+        }
+        writeString(target, player.getFirstname());
+        writeString(target, player.getLastname());
+        writeString(target, player.getCountry());
+        endFrame(target, frameStart);
+    }
+
+    public static void writeRemove(final ByteBuffer target, final long id) {
+        final int frameStart = beginFrame(target);
+        target.put(REMOVE);
+        target.putLong(id);
+        endFrame(target, frameStart);
+    }
+
+    public static void writeClear(final ByteBuffer target) {
+        final int frameStart = beginFrame(target);
+        target.put(CLEAR);
+        endFrame(target, frameStart);
+    }
+
+    public static void writeLastId(final ByteBuffer target, final long lastId) {
+        final int frameStart = beginFrame(target);
+        target.put(LAST_ID);
+        target.putLong(lastId);
+        endFrame(target, frameStart);
+    }
+
+    /**
+     * Decodes frames from the buffer's position until its limit or the first damaged frame.
+     *
+     * @return the position right after the last intact frame
+     */
+    public static int readFrames(final ByteBuffer source, final RecordHandler handler) {
+        final CRC32C crc = new CRC32C();
+        int validPosition = source.position();
+
+        while (source.remaining() >= FRAME_HEADER_SIZE) {
+            final int length = source.getInt();
+            final int checksum = source.getInt();
+            if (length <= 0 || length > source.remaining()) {
+                break;
+            }
+
+            final ByteBuffer payload = source.slice(source.position(), length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            readRecord(payload, handler);
+            source.position(source.position() + length);
+            validPosition = source.position();
+        }
+
+        return validPosition;
+    }
+
+    private static void readRecord(final ByteBuffer payload, final RecordHandler handler) {
+        final byte type = payload.get();
+        switch (type) {
+            case PUT -> handler.onPut(readPlayer(payload));
+            case REMOVE -> handler.onRemove(payload.getLong());
+            case CLEAR -> handler.onClear();
+            case LAST_ID -> handler.onLastId(payload.getLong());
+            default -> throw new IllegalStateException("Unknown player record type: " + type);
+        }
+    }
+
+    private static Player readPlayer(final ByteBuffer payload) {
+        final long id = payload.getLong();
+        final long coachId = payload.getLong();
+        final int flags = payload.get();
+        final LocalDate dateOfBirth = (flags & HAS_DATE_OF_BIRTH) != 0 ? LocalDate.ofEpochDay(payload.getLong()) : null;
+        final Double height = (flags & HAS_HEIGHT) != 0 ? payload.getDouble() : null;
+        final Double weight = (flags & HAS_WEIGHT) != 0 ? payload.getDouble() : null;
+
+        return Player.builder()
+                .id(id)
+                .coachId(coachId)
+                .dateOfBirth(dateOfBirth)
+                .height(height)
+                .weight(weight)
+                .firstname(readString(payload))
+                .lastname(readString(payload))
+                .country(readString(payload))
+                .build();
+    }
+
+    private static int beginFrame(final ByteBuffer target) {
+        final int frameStart = target.position();
+        target.position(frameStart + FRAME_HEADER_SIZE);
+        return frameStart;
+    }
+
+    private static void endFrame(final ByteBuffer target, final int frameStart) {
+        final int payloadStart = frameStart + FRAME_HEADER_SIZE;
+        final int length = target.position() - payloadStart;
+        final CRC32C crc = new CRC32C();
+        crc.update(target.slice(payloadStart, length));
+        target.putInt(frameStart, length);
+        target.putInt(frameStart + Integer.BYTES, (int) crc.getValue());
+    }
+
+    private static void writeString(final ByteBuffer target, final String value) {
+        if (value == null) {
+            target.putInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            target.putInt(bytes.length);
+            target.put(bytes);
+        }
+    }
+
+    private static String readString(final ByteBuffer source) {
+        final int length = source.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final String value = StandardCharsets.UTF_8.decode(source.slice(source.position(), length)).toString();
+        source.position(source.position() + length);
+        return value;
+    }
+}
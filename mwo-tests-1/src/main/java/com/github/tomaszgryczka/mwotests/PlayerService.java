@@ -2,66 +2,367 @@ package com.github.tomaszgryczka.mwotests;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class PlayerService {
-    private final List<Player> playersDb = new ArrayList<>();
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int CHANGE_LOG_CAPACITY = 100_000;
+    private static final int LOCK_STRIPES = 64;
+
+    private final PlayerStore playersDb;
+    private final PlayerJournal journal;
+    private final CountryIndex countryIndex;
+    private final RangeIndex<LocalDate> dateOfBirthIndex;
+    private final RangeIndex<Double> heightIndex;
+    private final RangeIndex<Double> weightIndex;
+    private final NameIndex nameIndex;
+    private final CoachIndex coachIndex = new CoachIndex();
+    private final PlayerAggregates aggregates = new PlayerAggregates();
+    private final PlayerChangeLog changeLog = new PlayerChangeLog(CHANGE_LOG_CAPACITY);
+    private final StampedLock[] writeLocks = new StampedLock[LOCK_STRIPES];
     private static final Logger logger = LoggerFactory.getLogger(PlayerService.class);
 
-    public Player save(final PlayerRequest playerRequest) {
+    public PlayerService(final ObjectProvider<PlayerStore> playerStore, final ObjectProvider<PlayerJournal> playerJournal) {
+        this.playersDb = playerStore.getIfAvailable(InMemoryPlayerStore::new);
+        this.journal = playerJournal.getIfAvailable();
+        this.countryIndex = new CountryIndex(playersDb::get);
+        this.dateOfBirthIndex = new RangeIndex<>(Player::getDateOfBirth, playersDb::get);
+        this.heightIndex = new RangeIndex<>(Player::getHeight, playersDb::get);
+        this.weightIndex = new RangeIndex<>(Player::getWeight, playersDb::get);
+        this.nameIndex = new NameIndex(playersDb::get);
+        this.playersDb.addListener(countryIndex);
+        this.playersDb.addListener(dateOfBirthIndex);
+        this.playersDb.addListener(heightIndex);
+        this.playersDb.addListener(weightIndex);
+        this.playersDb.addListener(nameIndex);
+        this.playersDb.addListener(coachIndex);
+        this.playersDb.addListener(aggregates);
+        this.playersDb.addListener(changeLog);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            writeLocks[i] = new StampedLock();
+        }
+    }
 
-        final long lastPlayerId = playersDb.size() == 0 ? 0 : playersDb.get(playersDb.size() - 1).getId();
+    public Player save(final PlayerRequest playerRequest) {
 
-        final Player newPlayer = Player.builder()
-                .id(lastPlayerId + 1)
-                .coachId(playerRequest.getCoachId())
-                .country(playerRequest.getCountry())
-                .dateOfBirth(playerRequest.getDateOfBirth())
-                .firstname(playerRequest.getFirstname())
-                .lastname(playerRequest.getLastname())
-                .height(playerRequest.getHeight())
-                .weight(playerRequest.getWeight())
-                .build();
+        final Player newPlayer = toPlayer(playersDb.nextId(), playerRequest);
 
-        playersDb.add(newPlayer);
+        insert(newPlayer);
+        awaitDurable();
 
         return newPlayer;
     }
 
+    /**
+     * Saves a batch of players, reserving their ids with a single call to the store. With
+     * persistence enabled the batch waits for the journal once, after its last player, so it
+     * is synced by one group commit instead of one per player.
+     */
+    public List<Player> saveAll(final List<PlayerRequest> playerRequests) {
+        if (playerRequests.isEmpty()) {
+            return List.of();
+        }
+
+        final long firstId = playersDb.reserveIds(playerRequests.size());
+        final List<Player> newPlayers = new ArrayList<>(playerRequests.size());
+        for (int i = 0; i < playerRequests.size(); i++) {
+            newPlayers.add(toPlayer(firstId + i, playerRequests.get(i)));
+        }
+
+        newPlayers.forEach(this::insert);
+        awaitDurable();
+
+        return newPlayers;
+    }
+
     public Player findPlayerById(final Long id) {
-        return playersDb.stream()
-                .filter(player -> player.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return playersDb.get(id);
+    }
+
+    /**
+     * The player together with the version of its last change. Reads are optimistic and
+     * only wait when a write of a player in the same lock stripe overlaps them.
+     *
+     * @return {@code null} when no player has the id
+     */
+    public Versioned<Player> findVersionedPlayerById(final long id) {
+        final StampedLock lock = lockFor(id);
+        final long optimisticStamp = lock.tryOptimisticRead();
+        Versioned<Player> player = readVersioned(id);
+        if (!lock.validate(optimisticStamp)) {
+            final long stamp = lock.readLock();
+            try {
+                player = readVersioned(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return player;
     }
 
     public List<Player> findPlayersByCountry(final String country) {
-        return playersDb.stream()
-                .filter(player -> player.getCountry().equals(country))
-                .collect(Collectors.toList());
+        return findVersionedPlayersByCountry(country).getValue();
+    }
+
+    /**
+     * Players from the given country, versioned by a 64-bit digest of their ids and versions
+     * in list order, so any write that changes the list changes its version.
+     */
+    public Versioned<List<Player>> findVersionedPlayersByCountry(final String country) {
+        try (Stream<Long> ids = countryIndex.findPlayerIds(country, null)) {
+            final List<Player> players = new ArrayList<>();
+            long digest = 0;
+            for (final Iterator<Long> iterator = ids.iterator(); iterator.hasNext(); ) {
+                final Versioned<Player> player = findVersionedPlayerById(iterator.next());
+                if (player != null) {
+                    players.add(player.getValue());
+                    digest = digest(digest(digest, player.getValue().getId()), player.getVersion());
+                }
+            }
+            return new Versioned<>(players, digest);
+        }
+    }
+
+    public PlayerPage findPlayersByCountry(final String country, final Long cursor, final int limit) {
+        return findVersionedPlayersByCountry(country, cursor, limit).getValue();
+    }
+
+    /**
+     * Page of the country's players, versioned like {@link #findVersionedPlayersByCountry(String)}
+     * with the next cursor included in the digest.
+     */
+    public Versioned<PlayerPage> findVersionedPlayersByCountry(final String country, final Long cursor, final int limit) {
+        final int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        try (Stream<Long> ids = countryIndex.findPlayerIds(country, cursor)) {
+            final Iterator<Long> iterator = ids.iterator();
+
+            final List<Player> page = new ArrayList<>(pageSize);
+            long digest = 0;
+            Long nextCursor = null;
+            while (iterator.hasNext()) {
+                final Versioned<Player> player = findVersionedPlayerById(iterator.next());
+                if (player == null) {
+                    continue;
+                }
+                if (page.size() == pageSize) {
+                    nextCursor = page.get(pageSize - 1).getId();
+                    break;
+                }
+                page.add(player.getValue());
+                digest = digest(digest(digest, player.getValue().getId()), player.getVersion());
+            }
+
+            return new Versioned<>(PlayerPage.builder()
+                    .players(page)
+                    .nextCursor(nextCursor)
+                    .build(), digest(digest, nextCursor == null ? -1 : nextCursor));
+        }
+    }
+
+    /**
+     * Page of the coach's players ordered by id, costing O(log k + limit) for a roster of k.
+     */
+    public PlayerPage findPlayersByCoach(final long coachId, final Long cursor, final int limit) {
+        final int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        final long[] ids = coachIndex.findPlayerIds(coachId, cursor, pageSize + 1);
+
+        final int count = Math.min(ids.length, pageSize);
+        final List<Player> page = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Player player = playersDb.get(ids[i]);
+            if (player != null) {
+                page.add(player);
+            }
+        }
+
+        return PlayerPage.builder()
+                .players(page)
+                .nextCursor(ids.length > pageSize ? ids[pageSize - 1] : null)
+                .build();
+    }
+
+    /**
+     * Lazily walks the players from the given country without copying them, for callers
+     * that write the result out incrementally.
+     */
+    public Stream<Player> streamPlayersByCountry(final String country, final Long cursor) {
+        return countryIndex.findPlayers(country, cursor);
+    }
+
+    /**
+     * Finds players matching every range predicate of the query. The range of the sort
+     * attribute is located through its index and walked in order, so a page costs
+     * O(log n + offset + limit) when the other predicates match most of that range.
+     */
+    public List<Player> findPlayersInRange(final PlayerRangeQuery query) {
+        final int pageSize = Math.max(1, Math.min(query.getLimit(), MAX_PAGE_SIZE));
+        final Stream<Player> candidates = switch (query.sortAttribute()) {
+            case DATE_OF_BIRTH -> dateOfBirthIndex.findPlayers(query.getBornFrom(), query.getBornTo());
+            case HEIGHT -> heightIndex.findPlayers(query.getMinHeight(), query.getMaxHeight());
+            case WEIGHT -> weightIndex.findPlayers(query.getMinWeight(), query.getMaxWeight());
+        };
+
+        try (candidates) {
+            return candidates.filter(query::matches)
+                    .skip(query.getOffset())
+                    .limit(pageSize)
+                    .collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    /**
+     * Typeahead search over first and last names, ignoring case and diacritics.
+     */
+    public List<Player> searchPlayersByName(final String query, final int limit) {
+        return nameIndex.findPlayers(query, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    public PlayerBodyStats getBodyStats() {
+        return playersDb.bodyStats();
+    }
+
+    public Map<String, SortedMap<Integer, Long>> getAgeDistributionByCountry() {
+        return playersDb.ageDistributionByCountry(LocalDate.now());
+    }
+
+    /**
+     * Headcounts and height/weight totals per country and per coach, maintained on every
+     * write instead of being computed from the players.
+     */
+    public PlayerStats getStats() {
+        return aggregates.stats();
+    }
+
+    public PlayerGroupStats getCountryStats(final String country) {
+        return aggregates.countryStats(country);
+    }
+
+    public PlayerGroupStats getCoachStats(final long coachId) {
+        return aggregates.coachStats(coachId);
+    }
+
+    /**
+     * Changes after version {@code since}, or just the current version when {@code since} is
+     * {@code null}, which is where a client that has loaded the players starts from.
+     */
+    public PlayerChanges findChanges(final Long since, final int limit) {
+        final int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return changeLog.changesSince(since == null ? changeLog.version() : since, pageSize);
+    }
+
+    public long getChangeVersion() {
+        return changeLog.version();
     }
 
     public Player setPlayerInfoById(final Player player) {
+        return updatePlayer(player, null).getValue();
+    }
+
+    /**
+     * Replaces the player if {@code expectedVersion} accepts the version of its last change,
+     * or unconditionally when {@code expectedVersion} is {@code null}. The check and the write
+     * are atomic with respect to every other write of the player.
+     *
+     * @return the player with its new version, or {@code null} when the version was not accepted
+     * or, for a conditional update, the player does not exist
+     */
+    public Versioned<Player> updatePlayer(final Player player, final LongPredicate expectedVersion) {
         final long playerId = player.getId();
 
-        final long oldPlayerIndex = playersDb.stream()
-                .filter(p -> p.getId() == playerId)
-                .findFirst()
-                .map(playersDb::indexOf)
-                .orElseThrow(IllegalArgumentException::new);
+        logger.info("Updating player with id: {}", playerId);
+        final Versioned<Player> updated = withWriteLock(playerId, () -> {
+            if (expectedVersion != null) {
+                final long version = changeLog.playerVersion(playerId);
+                if (version == 0 || !expectedVersion.test(version)) {
+                    return null;
+                }
+            }
+            if (playersDb.replace(player) == null) {
+                throw new IllegalArgumentException();
+            }
+            return new Versioned<>(player, changeLog.playerVersion(playerId));
+        });
+        awaitDurable();
+        return updated;
+    }
+
+    public void deletePlayerById(final Long playerId) {
+        withWriteLock(playerId, () -> playersDb.remove(playerId));
+        awaitDurable();
+    }
+
+    private void insert(final Player player) {
+        withWriteLock(player.getId(), () -> {
+            playersDb.insert(player);
+            return player;
+        });
+    }
 
-        logger.info("Updating player with id: {}", oldPlayerIndex);
-        playersDb.set(Math.toIntExact(oldPlayerIndex), player);
+    /**
+     * Every write of a player holds the write lock of its stripe, so that a reader sees a
+     * player and its version from the same write and conditional updates cannot interleave.
+     */
+    private <T> T withWriteLock(final long playerId, final Supplier<T> write) {
+        final StampedLock lock = lockFor(playerId);
+        final long stamp = lock.writeLock();
+        try {
+            return write.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
 
-        return playersDb.get(Math.toIntExact(oldPlayerIndex));
+    /**
+     * With persistence enabled, waits until the journal has synced every write of the calling
+     * thread. Writes call it once they have released their locks and before they return.
+     */
+    private void awaitDurable() {
+        if (journal != null) {
+            journal.awaitDurable();
+        }
     }
 
-    public void deletePlayerById(final Long playerId) {
-        playersDb.removeIf(player -> player.getId() == playerId);
+    private StampedLock lockFor(final long playerId) {
+        return writeLocks[(int) (playerId ^ (playerId >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    private Versioned<Player> readVersioned(final long id) {
+        final long version = changeLog.playerVersion(id);
+        final Player player = playersDb.get(id);
+        return player == null || version == 0 ? null : new Versioned<>(player, version);
+    }
+
+    private static long digest(final long digest, final long value) {
+        long hash = digest ^ value;
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private Player toPlayer(final long id, final PlayerRequest playerRequest) {
+        return Player.builder()
+                .id(id)
+                .coachId(playerRequest.getCoachId())
+                .country(playerRequest.getCountry())
+                .dateOfBirth(playerRequest.getDateOfBirth())
+                .firstname(playerRequest.getFirstname())
+                .lastname(playerRequest.getLastname())
+                .height(playerRequest.getHeight())
+                .weight(playerRequest.getWeight())
+                .build();
     }
 }
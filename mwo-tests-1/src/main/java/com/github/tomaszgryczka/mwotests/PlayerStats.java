@@ -0,0 +1,13 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class PlayerStats {
+    private final Map<String, PlayerGroupStats> countries;
+    private final Map<Long, PlayerGroupStats> coaches;
+}
@@ -0,0 +1,103 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Storage engine behind {@link PlayerService}. Implementations keep a primary id index
+ * and iterate players in insertion order.
+ */
+public interface PlayerStore {
+
+    /**
+     * Allocates the id for the next player to be inserted.
+     */
+    long nextId();
+
+    /**
+     * Allocates a contiguous range of {@code count} ids in one step.
+     *
+     * @return the first id of the range
+     */
+    long reserveIds(int count);
+
+    /**
+     * The highest id allocated or inserted so far.
+     */
+    long lastId();
+
+    /**
+     * Makes sure ids up to {@code lastId} are never allocated again, e.g. after recovery.
+     */
+    void advanceIds(long lastId);
+
+    Player get(long id);
+
+    void insert(Player player);
+
+    /**
+     * Replaces the stored player with the same id, keeping its position.
+     *
+     * @return the previous player, or {@code null} when no player with that id is stored
+     */
+    Player replace(Player player);
+
+    /**
+     * @return the removed player, or {@code null} when no player with that id is stored
+     */
+    Player remove(long id);
+
+    Stream<Player> stream();
+
+    int size();
+
+    void clear();
+
+    /**
+     * Registers a listener and sends it {@code onInsert} for every player already stored.
+     * Meant to be called while the store is being set up, before it takes writes.
+     */
+    void addListener(PlayerStoreListener listener);
+
+    /**
+     * Height and weight statistics over all stored players. The default implementation
+     * materialises every player; stores with a better layout should override it.
+     */
+    default PlayerBodyStats bodyStats() {
+        final AttributeStats.Accumulator height = new AttributeStats.Accumulator();
+        final AttributeStats.Accumulator weight = new AttributeStats.Accumulator();
+        try (Stream<Player> players = stream()) {
+            players.forEach(player -> {
+                height.add(player.getHeight());
+                weight.add(player.getWeight());
+            });
+        }
+        return PlayerBodyStats.builder()
+                .height(height.toStats())
+                .weight(weight.toStats())
+                .build();
+    }
+
+    /**
+     * Number of players of each age, in full years on {@code today}, per country. Players
+     * without a country or date of birth, or born after {@code today}, are left out.
+     */
+    default Map<String, SortedMap<Integer, Long>> ageDistributionByCountry(final LocalDate today) {
+        final Map<String, SortedMap<Integer, Long>> distribution = new TreeMap<>();
+        try (Stream<Player> players = stream()) {
+            players.forEach(player -> {
+                if (player.getCountry() != null && player.getDateOfBirth() != null
+                        && !player.getDateOfBirth().isAfter(today)) {
+                    final int age = Period.between(player.getDateOfBirth(), today).getYears();
+                    distribution.computeIfAbsent(player.getCountry(), country -> new TreeMap<>())
+                            .merge(age, 1L, Long::sum);
+                }
+            });
+        }
+        return distribution;
+    }
+}
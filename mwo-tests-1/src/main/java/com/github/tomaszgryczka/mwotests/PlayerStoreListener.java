@@ -0,0 +1,25 @@
+package com.github.tomaszgryczka.mwotests;
+
+/**
+ * Callback used to keep secondary structures in step with a {@link PlayerStore}.
+ * Stores invoke the player callbacks while holding the write slot of the affected
+ * player id, so callbacks for one player are never interleaved, but they must not
+ * call back into the store.
+ */
+public interface PlayerStoreListener {
+
+    void onInsert(Player player);
+
+    void onReplace(Player previous, Player current);
+
+    void onRemove(Player player);
+
+    void onClear();
+
+    /**
+     * Called outside any write slot once ids up to {@code lastId} have been allocated.
+     * Calls from concurrent allocations may arrive out of order.
+     */
+    default void onReserveIds(final long lastId) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.tomaszgryczka.mwotests;
+
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Secondary index keeping players sorted by one attribute, with ties broken by id, so a range
+ * of values is found in O(log n) and then walked in order. Players without a value for the
+ * attribute are kept apart, by id, and only take part in unbounded walks. Only values and ids
+ * are kept; players are looked up in the store as the result is walked.
+ */
+public class RangeIndex<V extends Comparable<? super V>> implements PlayerStoreListener {
+    private final Function<Player, V> attribute;
+    private final LongFunction<Player> players;
+    private final NavigableSet<Key<V>> keys = new ConcurrentSkipListSet<>();
+    private final NavigableSet<Long> withoutValue = new ConcurrentSkipListSet<>();
+
+    public RangeIndex(final Function<Player, V> attribute, final LongFunction<Player> players) {
+        this.attribute = attribute;
+        this.players = players;
+    }
+
+    /**
+     * Lazy, weakly consistent walk over the players whose value lies between {@code from} and
+     * {@code to}, both inclusive, in ascending order of value; a {@code null} bound is open.
+     * With both bounds open every player is walked, those without a value last, by id.
+     * A player updated during the walk is returned as it is now, so callers re-check the range.
+     */
+    public Stream<Player> findPlayers(final V from, final V to) {
+        if (from != null && to != null && from.compareTo(to) > 0) {
+            return Stream.empty();
+        }
+        NavigableSet<Key<V>> range = keys;
+        if (from != null) {
+            range = range.tailSet(new Key<>(from, Long.MIN_VALUE), true);
+        }
+        if (to != null) {
+            range = range.headSet(new Key<>(to, Long.MAX_VALUE), true);
+        }
+        final Stream<Long> ids = range.stream().map(key -> key.id);
+        return (from == null && to == null ? Stream.concat(ids, withoutValue.stream()) : ids)
+                .map(players::apply)
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public void onInsert(final Player player) {
+        add(player);
+    }
+
+    @Override
+    public void onReplace(final Player previous, final Player current) {
+        if (!Objects.equals(attribute.apply(previous), attribute.apply(current))) {
+            remove(previous);
+        }
+        add(current);
+    }
+
+    @Override
+    public void onRemove(final Player player) {
+        remove(player);
+    }
+
+    @Override
+    public void onClear() {
+        keys.clear();
+        withoutValue.clear();
+    }
+
+    private void add(final Player player) {
+        final V value = attribute.apply(player);
+        if (value != null) {
+            keys.add(new Key<>(value, player.getId()));
+        } else {
+            withoutValue.add(player.getId());
+        }
+    }
+
+    private void remove(final Player player) {
+        final V value = attribute.apply(player);
+        if (value != null) {
+            keys.remove(new Key<>(value, player.getId()));
+        } else {
+            withoutValue.remove(player.getId());
+        }
+    }
+
+    private static final class Key<V extends Comparable<? super V>> implements Comparable<Key<V>> {
+        private final V value;
+        private final long id;
+
+        Key(final V value, final long id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(final Key<V> other) {
+            final int byValue = value.compareTo(other.value);
+            return byValue != 0 ? byValue : Long.compare(id, other.id);
+        }
+    }
+}
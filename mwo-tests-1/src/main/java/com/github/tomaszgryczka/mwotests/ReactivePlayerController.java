@@ -0,0 +1,141 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The {@code /players} API on WebFlux, active with {@code spring.main.web-application-type=reactive}.
+ * Serves the endpoints of {@link PlayerController} except the bulk import, which stays
+ * servlet-only, and without entity tags: responses carry no {@code ETag} and
+ * {@code If-None-Match} and {@code If-Match} are ignored.
+ * Country listings are streamed element by element, as a JSON array or as NDJSON when the
+ * client accepts {@code application/x-ndjson}, at the pace the client reads them.
+ */
+@RestController
+@RequestMapping("/players")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactivePlayerController {
+
+    private final ReactivePlayerService playerService;
+
+    @GetMapping("/{playerId}")
+    public Mono<Player> getPlayer(@PathVariable long playerId) {
+        return playerService.findPlayerById(playerId);
+    }
+
+    @PostMapping
+    @ResponseStatus(value = HttpStatus.CREATED)
+    public Mono<Player> createPlayer(@RequestBody PlayerRequest playerRequest) {
+        return playerService.save(playerRequest);
+    }
+
+    @PutMapping
+    public Mono<Player> updatePlayer(@RequestBody Player player) {
+        return playerService.setPlayerInfoById(player);
+    }
+
+    @DeleteMapping("/{playerId}")
+    @ResponseStatus(value = HttpStatus.NO_CONTENT)
+    public Mono<Void> deletePlayer(@PathVariable long playerId) {
+        return playerService.deletePlayerById(playerId);
+    }
+
+    @GetMapping("/filter/{country}")
+    public Flux<Player> filterByCountry(@PathVariable String country,
+                                        @RequestParam(required = false) Long cursor) {
+        return playerService.streamPlayersByCountry(country, cursor);
+    }
+
+    @GetMapping(value = "/filter/{country}", params = "limit")
+    public Mono<PlayerPage> filterByCountry(@PathVariable String country,
+                                            @RequestParam(required = false) Long cursor,
+                                            @RequestParam int limit) {
+        return playerService.findPlayersByCountry(country, cursor, limit);
+    }
+
+    @GetMapping("/coach/{coachId}")
+    public Mono<PlayerPage> findPlayersByCoach(@PathVariable long coachId,
+                                               @RequestParam(required = false) Long cursor,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        return playerService.findPlayersByCoach(coachId, cursor, limit);
+    }
+
+    @GetMapping("/range")
+    public Flux<Player> findPlayersInRange(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornFrom,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornTo,
+                                           @RequestParam(required = false) Double minHeight,
+                                           @RequestParam(required = false) Double maxHeight,
+                                           @RequestParam(required = false) Double minWeight,
+                                           @RequestParam(required = false) Double maxWeight,
+                                           @RequestParam(required = false) PlayerAttribute sort,
+                                           @RequestParam(defaultValue = "0") int offset,
+                                           @RequestParam(defaultValue = "100") int limit) {
+        return playerService.findPlayersInRange(PlayerRangeQuery.builder()
+                .bornFrom(bornFrom)
+                .bornTo(bornTo)
+                .minHeight(minHeight)
+                .maxHeight(maxHeight)
+                .minWeight(minWeight)
+                .maxWeight(maxWeight)
+                .sort(sort)
+                .offset(Math.max(0, offset))
+                .limit(limit)
+                .build());
+    }
+
+    @GetMapping("/search")
+    public Mono<List<Player>> searchPlayers(@RequestParam String q,
+                                            @RequestParam(defaultValue = "10") int limit) {
+        return playerService.searchPlayersByName(q, limit);
+    }
+
+    @GetMapping("/stats")
+    public Mono<PlayerStats> getStats() {
+        return playerService.getStats();
+    }
+
+    @GetMapping("/stats/country/{country}")
+    public Mono<PlayerGroupStats> getCountryStats(@PathVariable String country) {
+        return playerService.getCountryStats(country);
+    }
+
+    @GetMapping("/stats/coach/{coachId}")
+    public Mono<PlayerGroupStats> getCoachStats(@PathVariable long coachId) {
+        return playerService.getCoachStats(coachId);
+    }
+
+    @GetMapping("/analytics/body")
+    public Mono<PlayerBodyStats> getBodyStats() {
+        return playerService.getBodyStats();
+    }
+
+    @GetMapping("/analytics/age-distribution")
+    public Mono<Map<String, SortedMap<Integer, Long>>> getAgeDistribution() {
+        return playerService.getAgeDistributionByCountry();
+    }
+
+    @GetMapping("/changes")
+    public Mono<PlayerChanges> findChanges(@RequestParam(required = false) Long since,
+                                           @RequestParam(defaultValue = "1000") int limit) {
+        return playerService.findChanges(since, limit);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges(@RequestParam(required = false) Long since,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return playerService.streamChanges(lastEventId != null ? lastEventId : since);
+    }
+}
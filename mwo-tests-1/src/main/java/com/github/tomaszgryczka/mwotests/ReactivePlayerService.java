@@ -0,0 +1,140 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * {@link PlayerService} for the reactive mode. Lookups only touch in-memory structures and
+ * at most wait out a short in-memory update of the same lock stripe, so they run on the
+ * calling event loop. Writes can block on a lock stripe and, with persistence enabled, wait
+ * for the journal to reach disk, so they run on the bounded elastic scheduler; queries that
+ * scan many players run on the parallel scheduler so they cannot stall other connections.
+ * List results are emitted lazily as the subscriber requests them.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactivePlayerService {
+    private final PlayerService playerService;
+
+    public Mono<Player> findPlayerById(final long id) {
+        return Mono.fromSupplier(() -> playerService.findPlayerById(id));
+    }
+
+    public Mono<Player> save(final PlayerRequest playerRequest) {
+        return Mono.fromSupplier(() -> playerService.save(playerRequest))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Player> setPlayerInfoById(final Player player) {
+        return Mono.fromSupplier(() -> playerService.setPlayerInfoById(player))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Void> deletePlayerById(final long id) {
+        return Mono.<Void>fromRunnable(() -> playerService.deletePlayerById(id))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Walks the country index only as far as the subscriber has requested, and closes the
+     * walk when the subscriber cancels.
+     */
+    public Flux<Player> streamPlayersByCountry(final String country, final Long cursor) {
+        return Flux.fromStream(() -> playerService.streamPlayersByCountry(country, cursor));
+    }
+
+    public Mono<PlayerPage> findPlayersByCountry(final String country, final Long cursor, final int limit) {
+        return Mono.fromSupplier(() -> playerService.findPlayersByCountry(country, cursor, limit));
+    }
+
+    public Mono<PlayerPage> findPlayersByCoach(final long coachId, final Long cursor, final int limit) {
+        return Mono.fromSupplier(() -> playerService.findPlayersByCoach(coachId, cursor, limit));
+    }
+
+    public Flux<Player> findPlayersInRange(final PlayerRangeQuery query) {
+        return Mono.fromSupplier(() -> playerService.findPlayersInRange(query))
+                .subscribeOn(Schedulers.parallel())
+                .flatMapIterable(players -> players);
+    }
+
+    public Mono<List<Player>> searchPlayersByName(final String query, final int limit) {
+        return Mono.fromSupplier(() -> playerService.searchPlayersByName(query, limit));
+    }
+
+    public Mono<PlayerStats> getStats() {
+        return Mono.fromSupplier(playerService::getStats);
+    }
+
+    public Mono<PlayerGroupStats> getCountryStats(final String country) {
+        return Mono.fromSupplier(() -> playerService.getCountryStats(country));
+    }
+
+    public Mono<PlayerGroupStats> getCoachStats(final long coachId) {
+        return Mono.fromSupplier(() -> playerService.getCoachStats(coachId));
+    }
+
+    public Mono<PlayerBodyStats> getBodyStats() {
+        return Mono.fromSupplier(playerService::getBodyStats)
+                .subscribeOn(Schedulers.parallel());
+    }
+
+    public Mono<Map<String, SortedMap<Integer, Long>>> getAgeDistributionByCountry() {
+        return Mono.fromSupplier(playerService::getAgeDistributionByCountry)
+                .subscribeOn(Schedulers.parallel());
+    }
+
+    public Mono<PlayerChanges> findChanges(final Long since, final int limit) {
+        return Mono.fromSupplier(() -> playerService.findChanges(since, limit));
+    }
+
+    /**
+     * Polls the change log every {@link PlayerChangeLog#STREAM_POLL_INTERVAL} for the changes
+     * after the last version sent to this subscriber, skipping polls while the subscriber has
+     * not consumed the previous page: pages are requested one at a time, so at most one page is
+     * buffered per subscriber. Ends with a {@code resync} event once the subscriber has fallen
+     * behind the log.
+     */
+    public Flux<ServerSentEvent<Object>> streamChanges(final Long since) {
+        return Flux.defer(() -> {
+            final long[] version = {since == null ? playerService.getChangeVersion() : since};
+            return Flux.interval(PlayerChangeLog.STREAM_POLL_INTERVAL)
+                    .onBackpressureDrop()
+                    .map(tick -> {
+                        final PlayerChanges changes = playerService.findChanges(version[0], PlayerService.MAX_PAGE_SIZE);
+                        version[0] = changes.getVersion();
+                        return changes;
+                    })
+                    .takeUntil(PlayerChanges::isResync)
+                    .concatMapIterable(ReactivePlayerService::toEvents, 1);
+        });
+    }
+
+    private static List<ServerSentEvent<Object>> toEvents(final PlayerChanges changes) {
+        if (changes.isResync()) {
+            return List.of(ServerSentEvent.builder()
+                    .event("resync")
+                    .data(changes)
+                    .build());
+        }
+        final List<ServerSentEvent<Object>> events = new ArrayList<>(changes.getChanges().size());
+        for (final PlayerChange change : changes.getChanges()) {
+            events.add(ServerSentEvent.builder()
+                    .id(String.valueOf(change.getVersion()))
+                    .event("change")
+                    .data(change)
+                    .build());
+        }
+        return events;
+    }
+}
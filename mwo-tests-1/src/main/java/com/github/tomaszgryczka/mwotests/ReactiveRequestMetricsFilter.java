@@ -0,0 +1,51 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reactive counterpart of {@link RequestMetricsFilter}: times every exchange until its
+ * response completes and records it against the controller method that handled it. The
+ * handler is only known once the exchange has been dispatched, so in-flight calls are not
+ * tracked in this mode.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveRequestMetricsFilter implements WebFilter {
+
+    private final MetricsRegistry metricsRegistry;
+    private final Map<Method, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        final long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            final Object handler = exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+            if (handler instanceof HandlerMethod) {
+                final HttpStatus status = exchange.getResponse().getStatusCode();
+                final boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                operationOf((HandlerMethod) handler).record(System.nanoTime() - start, failed);
+            }
+        });
+    }
+
+    private OperationMetrics operationOf(final HandlerMethod handlerMethod) {
+        final OperationMetrics operation = operations.get(handlerMethod.getMethod());
+        return operation != null ? operation : operations.computeIfAbsent(handlerMethod.getMethod(), method ->
+                metricsRegistry.operation(handlerMethod.getBeanType().getSimpleName() + "." + method.getName()));
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Times every request and records it against the operation chosen by
+ * {@link RequestMetricsInterceptor}. Streaming responses are timed until the handler
+ * returns, not until the last byte is written.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } finally {
+            final OperationMetrics operation =
+                    (OperationMetrics) request.getAttribute(RequestMetricsInterceptor.OPERATION_ATTRIBUTE);
+            if (operation != null) {
+                operation.exit();
+                operation.record(System.nanoTime() - start, failed);
+            }
+        }
+    }
+}
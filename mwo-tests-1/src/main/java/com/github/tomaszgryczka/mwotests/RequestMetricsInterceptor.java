@@ -0,0 +1,42 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tags each request with the {@link OperationMetrics} of the controller method handling it;
+ * {@link RequestMetricsFilter} records the timing once the request completes.
+ */
+@RequiredArgsConstructor
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+    public static final String OPERATION_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".operation";
+
+    private final MetricsRegistry metricsRegistry;
+    private final Map<Method, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+        if (request.getDispatcherType() == DispatcherType.REQUEST
+                && handler instanceof HandlerMethod
+                && request.getAttribute(OPERATION_ATTRIBUTE) == null) {
+            final OperationMetrics operation = operationOf((HandlerMethod) handler);
+            operation.enter();
+            request.setAttribute(OPERATION_ATTRIBUTE, operation);
+        }
+        return true;
+    }
+
+    private OperationMetrics operationOf(final HandlerMethod handlerMethod) {
+        final OperationMetrics operation = operations.get(handlerMethod.getMethod());
+        return operation != null ? operation : operations.computeIfAbsent(handlerMethod.getMethod(), method ->
+                metricsRegistry.operation(handlerMethod.getBeanType().getSimpleName() + "." + method.getName()));
+    }
+}
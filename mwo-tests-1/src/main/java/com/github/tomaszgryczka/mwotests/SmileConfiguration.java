@@ -0,0 +1,61 @@
+package com.github.tomaszgryczka.mwotests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Adds Smile, Jackson's binary encoding of the JSON data model, as a second wire format for the
+ * players API. Clients opt in with {@code Accept} or {@code Content-Type:
+ * application/x-jackson-smile}; JSON stays the default. The Smile mapper is built from the same
+ * {@link Jackson2ObjectMapperBuilder} as the JSON one, so both formats carry the same fields and
+ * date representation, and it back-references repeated property names and short string values
+ * such as countries, which keeps long player lists compact.
+ */
+@Configuration
+public class SmileConfiguration {
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    public static ObjectMapper smileMapper(final Jackson2ObjectMapperBuilder builder) {
+        return builder.createXmlMapper(false)
+                .factory(SmileFactory.builder()
+                        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Replaces the Smile converter Spring MVC registers by default, which would not pick up
+     * the application's Jackson settings.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(final Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper(builder));
+    }
+
+    /**
+     * Replaces the default WebFlux Smile codecs for the same reason. They are given the Smile
+     * media type explicitly, since codecs built around a custom mapper otherwise claim the JSON
+     * media types and Smile requests are answered with 406.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public CodecCustomizer smileCodecCustomizer(final Jackson2ObjectMapperBuilder builder) {
+        final ObjectMapper smileMapper = smileMapper(builder);
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, APPLICATION_SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE));
+        };
+    }
+}
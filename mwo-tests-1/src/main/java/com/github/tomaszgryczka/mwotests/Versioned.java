@@ -0,0 +1,13 @@
+package com.github.tomaszgryczka.mwotests;
+
+import lombok.Data;
+
+/**
+ * A value read together with the version that identifies it: the same version always comes
+ * with the same value, so it can back a strong entity tag.
+ */
+@Data
+public class Versioned<T> {
+    private final T value;
+    private final long version;
+}
@@ -0,0 +1,131 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+public class ColumnarPlayerStoreTests {
+    private static final LocalDate TODAY = LocalDate.of(2024, 2, 29);
+
+    @Test
+    public void should_ReturnSamePlayers_When_StoredInColumns() {
+        // given
+        final PlayerStore columnarStore = new ColumnarPlayerStore();
+        final PlayerStore inMemoryStore = new InMemoryPlayerStore();
+        final List<Player> players = getPlayersData();
+
+        // when
+        players.forEach(columnarStore::insert);
+        players.forEach(inMemoryStore::insert);
+
+        // then
+        Assertions.assertEquals(inMemoryStore.stream().collect(Collectors.toList()),
+                columnarStore.stream().collect(Collectors.toList()));
+        Assertions.assertEquals(players.get(3), columnarStore.get(4));
+        Assertions.assertEquals(6, columnarStore.nextId());
+    }
+
+    @Test
+    public void should_KeepOtherPlayers_When_PlayerRemovedAndLastRowMoved() {
+        // given
+        final PlayerStore playerStore = new ColumnarPlayerStore();
+        final List<Player> players = getPlayersData();
+        players.forEach(playerStore::insert);
+
+        // when
+        final Player removed = playerStore.remove(1);
+        final Player updated = Player.builder()
+                .id(5)
+                .coachId(7)
+                .firstname("Stefan")
+                .lastname("Treneiro")
+                .country("Niemcy")
+                .dateOfBirth(players.get(4).getDateOfBirth())
+                .build();
+        final Player previous = playerStore.replace(updated);
+
+        // then
+        Assertions.assertEquals(players.get(0), removed);
+        Assertions.assertEquals(players.get(4), previous);
+        Assertions.assertNull(playerStore.get(1));
+        Assertions.assertNull(playerStore.remove(1));
+        Assertions.assertEquals(updated, playerStore.get(5));
+        Assertions.assertEquals(List.of(players.get(1), players.get(2), players.get(3), updated),
+                playerStore.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void should_ComputeSameAnalyticsAsRowStore_When_PlayersStoredInColumns() {
+        // given
+        final PlayerStore columnarStore = new ColumnarPlayerStore();
+        final PlayerStore inMemoryStore = new InMemoryPlayerStore();
+        for (int i = 1; i <= 5000; i++) {
+            final Player player = Player.builder()
+                    .id(i)
+                    .country(i % 7 == 0 ? null : "Kraj" + i % 5)
+                    .dateOfBirth(i % 11 == 0 ? null : TODAY.minusDays(i * 13L))
+                    .height(i % 13 == 0 ? null : 150.0 + i % 60)
+                    .weight(i % 17 == 0 ? null : 50.0 + i % 70)
+                    .build();
+            columnarStore.insert(player);
+            inMemoryStore.insert(player);
+        }
+        for (int i = 1; i <= 5000; i += 3) {
+            columnarStore.remove(i);
+            inMemoryStore.remove(i);
+        }
+
+        // when
+        final PlayerBodyStats bodyStats = columnarStore.bodyStats();
+        final Map<String, SortedMap<Integer, Long>> ageDistribution = columnarStore.ageDistributionByCountry(TODAY);
+
+        // then
+        Assertions.assertEquals(inMemoryStore.bodyStats().getHeight().getCount(), bodyStats.getHeight().getCount());
+        Assertions.assertEquals(inMemoryStore.bodyStats().getHeight().getMin(), bodyStats.getHeight().getMin());
+        Assertions.assertEquals(inMemoryStore.bodyStats().getWeight().getMax(), bodyStats.getWeight().getMax());
+        Assertions.assertEquals(inMemoryStore.bodyStats().getWeight().getAverage(), bodyStats.getWeight().getAverage(), 1e-9);
+        Assertions.assertEquals(inMemoryStore.ageDistributionByCountry(TODAY), ageDistribution);
+    }
+
+    @Test
+    public void should_ReturnEmptyStats_When_StoreIsEmpty() {
+        // given
+        final PlayerStore playerStore = new ColumnarPlayerStore();
+
+        // when
+        final PlayerBodyStats bodyStats = playerStore.bodyStats();
+
+        // then
+        Assertions.assertEquals(0, bodyStats.getHeight().getCount());
+        Assertions.assertNull(bodyStats.getHeight().getAverage());
+        Assertions.assertTrue(playerStore.ageDistributionByCountry(TODAY).isEmpty());
+    }
+
+    private List<Player> getPlayersData() {
+        return List.of(
+                player(1, "Czesiek", "Zwinny", "Polska", LocalDate.of(2000, 12, 12), 160.0, 80.0),
+                player(2, "Marcin", "Powolny", "Niemcy", LocalDate.of(2015, 1, 1), 165.0, 80.2),
+                player(3, "Irena", "Waleczna", "Polska", null, 60.0, null),
+                player(4, "Jan", "Bezkrajowy", null, LocalDate.of(1820, 3, 1), null, 70.0),
+                player(5, "Stefan", "Treneiro", "Polska", LocalDate.of(1969, 12, 2), 200.0, 180.0));
+    }
+
+    private Player player(final long id, final String firstname, final String lastname, final String country,
+                          final LocalDate dateOfBirth, final Double height, final Double weight) {
+        return Player.builder()
+                .id(id)
+                .coachId(3L)
+                .firstname(firstname)
+                .lastname(lastname)
+                .country(country)
+                .dateOfBirth(dateOfBirth)
+                .height(height)
+                .weight(weight)
+                .build();
+    }
+}
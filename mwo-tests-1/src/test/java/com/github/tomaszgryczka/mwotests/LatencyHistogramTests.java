@@ -0,0 +1,43 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTests {
+
+    @Test
+    public void should_ReportPercentilesWithinOnePercent_When_ValuesAreRecorded() {
+        // given
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // then
+        Assertions.assertEquals(100_000, snapshot.getTotal());
+        Assertions.assertEquals(50_000_000, snapshot.valueAtPercentile(50), 500_000);
+        Assertions.assertEquals(99_000_000, snapshot.valueAtPercentile(99), 990_000);
+        Assertions.assertEquals(99_900_000, snapshot.valueAtPercentile(99.9), 999_000);
+        Assertions.assertEquals(100_000_000, snapshot.getMax());
+    }
+
+    @Test
+    public void should_CountExactly_When_ValuesAreSmall() {
+        // given
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        histogram.record(3);
+        histogram.record(7);
+        histogram.record(-1);
+
+        // then
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(0, snapshot.valueAtPercentile(10));
+        Assertions.assertEquals(3, snapshot.valueAtPercentile(50));
+        Assertions.assertEquals(7, snapshot.valueAtPercentile(100));
+    }
+}
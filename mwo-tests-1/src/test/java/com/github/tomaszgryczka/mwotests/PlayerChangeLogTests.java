@@ -0,0 +1,78 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PlayerChangeLogTests {
+
+    @Test
+    public void should_ReturnChangesInVersionOrder_When_PlayerCreatedUpdatedAndDeleted() {
+        // given
+        final PlayerChangeLog changeLog = new PlayerChangeLog(10, 0);
+        final Player player = player(1L, "Polska");
+        final Player movedPlayer = player(1L, "Niemcy");
+
+        // when
+        changeLog.onInsert(player);
+        changeLog.onReplace(player, movedPlayer);
+        changeLog.onRemove(movedPlayer);
+        final PlayerChanges firstPage = changeLog.changesSince(0, 2);
+        final PlayerChanges lastPage = changeLog.changesSince(firstPage.getVersion(), 2);
+
+        // then
+        Assertions.assertEquals(List.of(PlayerChangeType.CREATED, PlayerChangeType.UPDATED),
+                firstPage.getChanges().stream().map(PlayerChange::getType).collect(Collectors.toList()));
+        Assertions.assertEquals(movedPlayer, firstPage.getChanges().get(1).getPlayer());
+        Assertions.assertEquals(2, firstPage.getVersion());
+        Assertions.assertTrue(firstPage.isMore());
+        Assertions.assertEquals(1, lastPage.getChanges().size());
+        Assertions.assertEquals(PlayerChangeType.DELETED, lastPage.getChanges().get(0).getType());
+        Assertions.assertNull(lastPage.getChanges().get(0).getPlayer());
+        Assertions.assertEquals(3, lastPage.getVersion());
+        Assertions.assertFalse(lastPage.isMore());
+        Assertions.assertFalse(lastPage.isResync());
+    }
+
+    @Test
+    public void should_RequireResync_When_ChangesFellOutOfLogOrStoreCleared() {
+        // given
+        final PlayerChangeLog changeLog = new PlayerChangeLog(3, 0);
+
+        // when
+        for (long id = 1; id <= 5; id++) {
+            changeLog.onInsert(player(id, "Polska"));
+        }
+        final PlayerChanges evicted = changeLog.changesSince(1, 10);
+        final PlayerChanges retained = changeLog.changesSince(2, 10);
+        changeLog.onClear();
+        final PlayerChanges cleared = changeLog.changesSince(5, 10);
+        final PlayerChanges current = changeLog.changesSince(6, 10);
+
+        // then
+        Assertions.assertTrue(evicted.isResync());
+        Assertions.assertEquals(5, evicted.getVersion());
+        Assertions.assertEquals(List.of(3L, 4L, 5L),
+                retained.getChanges().stream().map(PlayerChange::getPlayerId).collect(Collectors.toList()));
+        Assertions.assertTrue(cleared.isResync());
+        Assertions.assertEquals(6, cleared.getVersion());
+        Assertions.assertFalse(current.isResync());
+        Assertions.assertTrue(current.getChanges().isEmpty());
+    }
+
+    private static Player player(final long id, final String country) {
+        return Player.builder()
+                .id(id)
+                .coachId(3L)
+                .firstname("Czesiek")
+                .lastname("Zwinny")
+                .country(country)
+                .dateOfBirth(LocalDate.of(2000, 12, 12))
+                .height(160.0)
+                .weight(80.0)
+                .build();
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.tomaszgryczka.mwotests;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,10 +9,13 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.time.LocalDate;
@@ -25,7 +29,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @Import(PlayerController.class)
 @WebMvcTest(controllers = PlayerController.class)
-@ContextConfiguration(classes = PlayerService.class)
+@ContextConfiguration(classes = {PlayerService.class, PlayerImporter.class, PlayerChangeEmitters.class,
+        SmileConfiguration.class})
 public class PlayerControllerTests {
 
     @Autowired
@@ -34,10 +39,14 @@ public class PlayerControllerTests {
     private PlayerService playerService;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
 
     @BeforeEach
     public void setPlayerRepository() {
-        ReflectionTestUtils.setField(playerService, "playersDb", getPlayersData());
+        final PlayerStore playersDb = (PlayerStore) ReflectionTestUtils.getField(playerService, "playersDb");
+        playersDb.clear();
+        getPlayersData().forEach(playersDb::insert);
     }
 
     @Test
@@ -71,6 +80,43 @@ public class PlayerControllerTests {
                 .andExpect(jsonPath("$.weight").value(100.0));
     }
 
+    @Test
+    public void should_ImportValidPlayersAndReportErrors_When_BulkNdjsonRequestSent() throws Exception {
+        // given
+        final PlayerRequest playerRequest = PlayerRequest.builder()
+                .coachId(1L)
+                .country("Polska")
+                .dateOfBirth(LocalDate.of(2000, 10, 10))
+                .firstname("TEST_FIRSTNAME")
+                .lastname("TEST_LASTNAME")
+                .height(180.0)
+                .weight(100.0)
+                .build();
+        final PlayerRequest playerRequestWithoutCoach = PlayerRequest.builder()
+                .country("Polska")
+                .build();
+        final String body = String.join("\n",
+                objectMapper.writeValueAsString(playerRequest),
+                "{not json",
+                objectMapper.writeValueAsString(playerRequest),
+                objectMapper.writeValueAsString(playerRequestWithoutCoach));
+
+        // when
+        final ResultActions response = mockMvc.perform(post("/players/bulk")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].record").value(2))
+                .andExpect(jsonPath("$.errors[1].record").value(4));
+        Assertions.assertEquals("TEST_FIRSTNAME", playerService.findPlayerById(4L).getFirstname());
+        Assertions.assertEquals("TEST_FIRSTNAME", playerService.findPlayerById(5L).getFirstname());
+    }
+
     @Test
     public void should_ReturnBadRequestCode_When_CreateWithNullRequest() throws Exception {
         // given
@@ -134,6 +180,153 @@ public class PlayerControllerTests {
                 .andExpect(content().json(objectMapper.writeValueAsString(updatedInfoPlayer)));
     }
 
+    @Test
+    public void should_ReturnNotModified_When_PlayerETagMatches() throws Exception {
+        // given
+        final String eTag = mockMvc.perform(get("/players/3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        // when
+        final ResultActions response = mockMvc.perform(get("/players/3")
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+        // then
+        Assertions.assertNotNull(eTag);
+        response.andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void should_TagJsonAndSmileDifferently_When_PlayerRequestedInBothFormats() throws Exception {
+        // given
+        final String jsonETag = mockMvc.perform(get("/players/3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        // when
+        final ResultActions response = mockMvc.perform(get("/players/3")
+                .accept(SmileConfiguration.APPLICATION_SMILE)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonETag));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SmileConfiguration.APPLICATION_SMILE))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        Assertions.assertNotEquals(jsonETag, response.andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void should_TagNegotiatedFormat_When_AcceptHeaderHasQualityValues() throws Exception {
+        // given
+        final String smileETag = mockMvc.perform(get("/players/3")
+                        .accept(SmileConfiguration.APPLICATION_SMILE))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        final String jsonETag = mockMvc.perform(get("/players/3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        // when
+        final ResultActions smileResponse = mockMvc.perform(get("/players/3")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile, */*;q=0.1"));
+        final ResultActions jsonResponse = mockMvc.perform(get("/players/3")
+                .header(HttpHeaders.ACCEPT, "application/x-jackson-smile;q=0.2, application/json;q=0.8"));
+
+        // then
+        smileResponse.andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SmileConfiguration.APPLICATION_SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, smileETag));
+        jsonResponse.andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(HttpHeaders.ETAG, jsonETag));
+    }
+
+    @Test
+    public void should_RejectStaleUpdate_When_IfMatchNoLongerMatches() throws Exception {
+        // given
+        final String eTag = mockMvc.perform(get("/players/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+        final Player firstUpdate = Player.builder()
+                .id(1L)
+                .coachId(3L)
+                .firstname("FIRST")
+                .lastname("WRITER")
+                .country("Niemcy")
+                .dateOfBirth(LocalDate.of(2015, 1, 1))
+                .height(165.0)
+                .weight(80.2)
+                .build();
+        final Player secondUpdate = Player.builder()
+                .id(1L)
+                .coachId(3L)
+                .firstname("SECOND")
+                .lastname("WRITER")
+                .country("Niemcy")
+                .dateOfBirth(LocalDate.of(2015, 1, 1))
+                .height(165.0)
+                .weight(80.2)
+                .build();
+
+        // when
+        final ResultActions firstResponse = mockMvc.perform(put("/players")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .content(objectMapper.writeValueAsString(firstUpdate)));
+        final ResultActions secondResponse = mockMvc.perform(put("/players")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .content(objectMapper.writeValueAsString(secondUpdate)));
+
+        // then
+        firstResponse.andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG));
+        secondResponse.andExpect(status().isPreconditionFailed());
+        Assertions.assertEquals(firstUpdate, playerService.findPlayerById(1L));
+    }
+
+    @Test
+    public void should_ReturnNotModifiedUntilPlayerChanges_When_FilterETagSent() throws Exception {
+        // given
+        final String country = "Polska";
+        final String eTag = mockMvc.perform(get("/players/filter/" + country)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        // when
+        final ResultActions unchanged = mockMvc.perform(get("/players/filter/" + country)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag));
+        playerService.deletePlayerById(2L);
+        final ResultActions changed = mockMvc.perform(get("/players/filter/" + country)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+        // then
+        unchanged.andExpect(status().isNotModified());
+        changed.andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        Assertions.assertNotEquals(eTag, changed.andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
     @Test
     public void should_DeletePlayer_When_DeletePlayerRequestSent() throws Exception {
         // given
@@ -143,7 +336,7 @@ public class PlayerControllerTests {
         final ResultActions response = mockMvc.perform(delete("/players/" + playerIdToDelete));
 
         // then
-        final List<Player> playersDb = (List<Player>) ReflectionTestUtils.getField(playerService, "playersDb");
+        final PlayerStore playersDb = (PlayerStore) ReflectionTestUtils.getField(playerService, "playersDb");
         final boolean result = playersDb.stream().noneMatch(player -> player.getId() == playerIdToDelete);
 
         response.andExpect(status().isNoContent());
@@ -164,6 +357,305 @@ public class PlayerControllerTests {
                 .andExpect(content().json(objectMapper.writeValueAsString(getPlayersLivingInPoland())));
     }
 
+    @Test
+    public void should_ReturnPlayersPage_When_FilterRequestWithLimitSent() throws Exception {
+        // given
+        final String country = "Polska";
+        final List<Player> playersLivingInPoland = getPlayersLivingInPoland();
+
+        // when
+        final ResultActions firstPage = mockMvc.perform(get("/players/filter/" + country)
+                .param("limit", "2")
+                .accept(MediaType.APPLICATION_JSON));
+        final ResultActions lastPage = mockMvc.perform(get("/players/filter/" + country)
+                .param("cursor", "2")
+                .param("limit", "2")
+                .accept(MediaType.APPLICATION_JSON));
+
+        // then
+        firstPage.andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(PlayerPage.builder()
+                        .players(playersLivingInPoland.subList(0, 2))
+                        .nextCursor(2L)
+                        .build())));
+        lastPage.andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").isEmpty())
+                .andExpect(content().json(objectMapper.writeValueAsString(PlayerPage.builder()
+                        .players(playersLivingInPoland.subList(2, 3))
+                        .build())));
+    }
+
+    @Test
+    public void should_ReturnRosterPage_When_CoachRequestSent() throws Exception {
+        // given
+        final List<Player> players = getPlayersData();
+
+        // when
+        final ResultActions firstPage = mockMvc.perform(get("/players/coach/3")
+                .param("limit", "3")
+                .accept(MediaType.APPLICATION_JSON));
+        final ResultActions lastPage = mockMvc.perform(get("/players/coach/3")
+                .param("cursor", "2")
+                .param("limit", "3")
+                .accept(MediaType.APPLICATION_JSON));
+
+        // then
+        firstPage.andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(PlayerPage.builder()
+                        .players(players.subList(0, 3))
+                        .nextCursor(2L)
+                        .build())));
+        lastPage.andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").isEmpty())
+                .andExpect(content().json(objectMapper.writeValueAsString(PlayerPage.builder()
+                        .players(players.subList(3, 4))
+                        .build())));
+    }
+
+    @Test
+    public void should_ReturnPlayersInRange_When_RangeRequestSent() throws Exception {
+        // given
+        final List<Player> players = getPlayersData();
+
+        // when
+        final ResultActions response = mockMvc.perform(get("/players/range")
+                .param("bornFrom", "2000-01-01")
+                .param("minHeight", "100")
+                .accept(MediaType.APPLICATION_JSON));
+        final ResultActions secondPage = mockMvc.perform(get("/players/range")
+                .param("bornFrom", "2000-01-01")
+                .param("minHeight", "100")
+                .param("offset", "1")
+                .param("limit", "1")
+                .accept(MediaType.APPLICATION_JSON));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(players.get(0), players.get(1))), true));
+        secondPage.andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(players.get(1))), true));
+    }
+
+    @Test
+    public void should_ReturnMatchingPlayers_When_NameSearchRequestSent() throws Exception {
+        // given
+        final List<Player> players = getPlayersData();
+
+        // when
+        final ResultActions response = mockMvc.perform(get("/players/search")
+                .param("q", "zwi")
+                .accept(MediaType.APPLICATION_JSON));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(List.of(players.get(0))), true));
+    }
+
+    @Test
+    public void should_ReturnBodyStats_When_BodyAnalyticsRequestSent() throws Exception {
+        // when
+        final ResultActions response = mockMvc.perform(get("/players/analytics/body")
+                .accept(MediaType.APPLICATION_JSON));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.height.count").value(4))
+                .andExpect(jsonPath("$.height.min").value(60.0))
+                .andExpect(jsonPath("$.height.max").value(200.0))
+                .andExpect(jsonPath("$.height.average").value(146.25))
+                .andExpect(jsonPath("$.weight.count").value(4))
+                .andExpect(jsonPath("$.weight.min").value(80.0))
+                .andExpect(jsonPath("$.weight.max").value(180.0));
+    }
+
+    @Test
+    public void should_ReturnGroupTotals_When_StatsRequestSent() throws Exception {
+        // when
+        final ResultActions response = mockMvc.perform(get("/players/stats")
+                .accept(MediaType.APPLICATION_JSON));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.countries.Polska.count").value(3))
+                .andExpect(jsonPath("$.countries.Polska.heightSum").value(420.0))
+                .andExpect(jsonPath("$.countries.Polska.weightSum").value(440.0))
+                .andExpect(jsonPath("$.countries.Niemcy.count").value(1))
+                .andExpect(jsonPath("$.coaches['3'].count").value(4));
+    }
+
+    @Test
+    public void should_ReturnChangesSinceVersion_When_ChangesRequestSent() throws Exception {
+        // given
+        final long version = playerService.getChangeVersion();
+        playerService.deletePlayerById(1L);
+        playerService.setPlayerInfoById(getPlayersData().get(2));
+
+        // when
+        final ResultActions response = mockMvc.perform(get("/players/changes")
+                .param("since", String.valueOf(version))
+                .accept(MediaType.APPLICATION_JSON));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(version + 2))
+                .andExpect(jsonPath("$.resync").value(false))
+                .andExpect(jsonPath("$.changes[0].type").value("DELETED"))
+                .andExpect(jsonPath("$.changes[0].playerId").value(1))
+                .andExpect(jsonPath("$.changes[1].type").value("UPDATED"))
+                .andExpect(jsonPath("$.changes[1].player.firstname").value("Irena"));
+    }
+
+    @Test
+    public void should_StreamPlayersAsNdjson_When_FilterRequestAcceptsNdjson() throws Exception {
+        // given
+        final String country = "Polska";
+        final String expectedBody = getPlayersLivingInPoland().stream()
+                .map(this::toJson)
+                .collect(Collectors.joining("\n"));
+
+        // when
+        final MvcResult result = mockMvc.perform(get("/players/filter/" + country)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expectedBody));
+    }
+
+    @Test
+    public void should_ReturnSmilePlayer_When_CreatePlayerRequestSentAsSmile() throws Exception {
+        // given
+        final ObjectMapper smileMapper = smileConverter.getObjectMapper();
+        final PlayerRequest playerRequest = PlayerRequest.builder()
+                .coachId(1L)
+                .country("Poland")
+                .dateOfBirth(LocalDate.of(2000, 10, 10))
+                .firstname("TEST_FIRSTNAME")
+                .lastname("TEST_LASTNAME")
+                .height(180.0)
+                .weight(100.0)
+                .build();
+
+        // when
+        final MvcResult result = mockMvc.perform(post("/players")
+                        .accept(SmileConfiguration.APPLICATION_SMILE)
+                        .contentType(SmileConfiguration.APPLICATION_SMILE)
+                        .content(smileMapper.writeValueAsBytes(playerRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(SmileConfiguration.APPLICATION_SMILE))
+                .andReturn();
+
+        // then
+        final Player player = smileMapper.readValue(result.getResponse().getContentAsByteArray(), Player.class);
+        Assertions.assertEquals(new Player(
+                4L,
+                1L,
+                "TEST_FIRSTNAME",
+                "TEST_LASTNAME",
+                "Poland",
+                LocalDate.of(2000, 10, 10),
+                180.0,
+                100.0), player);
+    }
+
+    @Test
+    public void should_ReturnSmallerSmileBody_When_FilterRequestAcceptsSmile() throws Exception {
+        // given
+        final String country = "Polska";
+        final ObjectMapper smileMapper = smileConverter.getObjectMapper();
+
+        // when
+        final MvcResult smile = mockMvc.perform(get("/players/filter/" + country)
+                        .accept(SmileConfiguration.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andReturn();
+        final MvcResult json = mockMvc.perform(get("/players/filter/" + country)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // then
+        final byte[] smileBody = smile.getResponse().getContentAsByteArray();
+        final List<Player> players = smileMapper.readValue(smileBody, new TypeReference<List<Player>>() {
+        });
+        Assertions.assertEquals(getPlayersLivingInPoland(), players);
+        Assertions.assertTrue(smileBody.length < json.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    public void should_ImportPlayers_When_BulkSmileRequestSent() throws Exception {
+        // given
+        final PlayerRequest playerRequest = PlayerRequest.builder()
+                .coachId(1L)
+                .country("Polska")
+                .dateOfBirth(LocalDate.of(2000, 10, 10))
+                .firstname("TEST_FIRSTNAME")
+                .lastname("TEST_LASTNAME")
+                .height(180.0)
+                .weight(100.0)
+                .build();
+        final PlayerRequest playerRequestWithoutCoach = PlayerRequest.builder()
+                .country("Polska")
+                .build();
+
+        // when
+        final ResultActions response = mockMvc.perform(post("/players/bulk")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(SmileConfiguration.APPLICATION_SMILE)
+                .content(smileConverter.getObjectMapper().writeValueAsBytes(
+                        List.of(playerRequest, playerRequestWithoutCoach, playerRequest))));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].record").value(2));
+        Assertions.assertEquals("TEST_FIRSTNAME", playerService.findPlayerById(5L).getFirstname());
+    }
+
+    @Test
+    public void should_ImportFollowingPlayers_When_BulkJsonArrayContainsMistypedRecord() throws Exception {
+        // given
+        final PlayerRequest playerRequest = PlayerRequest.builder()
+                .coachId(1L)
+                .country("Polska")
+                .firstname("TEST_FIRSTNAME")
+                .build();
+        final PlayerRequest nextPlayerRequest = PlayerRequest.builder()
+                .coachId(1L)
+                .country("Polska")
+                .firstname("NEXT_FIRSTNAME")
+                .build();
+        final String body = "[" + objectMapper.writeValueAsString(playerRequest)
+                + ",{\"coachId\":\"one\",\"firstname\":{\"nested\":[1,{\"a\":2}]}},"
+                + objectMapper.writeValueAsString(nextPlayerRequest) + "]";
+
+        // when
+        final ResultActions response = mockMvc.perform(post("/players/bulk")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+
+        // then
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].record").value(2));
+        Assertions.assertEquals("NEXT_FIRSTNAME", playerService.findPlayerById(5L).getFirstname());
+    }
+
+    private String toJson(final Player player) {
+        try {
+            return objectMapper.writeValueAsString(player);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private List<Player> getPlayersLivingInPoland() {
         return getPlayersData().stream()
                 .filter(player -> player.getCountry().equals("Polska"))
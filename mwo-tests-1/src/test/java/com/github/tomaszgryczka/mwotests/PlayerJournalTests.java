@@ -0,0 +1,191 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class PlayerJournalTests {
+    private static final Duration FSYNC_INTERVAL = Duration.ofMillis(5);
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void should_RestoreStore_When_ReopenedFromSnapshotAndLog() throws IOException {
+        // given
+        final PlayerStore playerStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(playerStore);
+            for (int i = 0; i < 1000; i++) {
+                playerStore.insert(player(playerStore.nextId(), "Polska"));
+            }
+            playerJournal.snapshot();
+            playerStore.remove(10);
+            playerStore.replace(player(20, "Niemcy"));
+            playerStore.insert(player(playerStore.nextId(), "Niemcy"));
+        }
+
+        // when
+        final PlayerStore restoredStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(restoredStore);
+        }
+
+        // then
+        Assertions.assertEquals(playerStore.stream().collect(Collectors.toList()),
+                restoredStore.stream().collect(Collectors.toList()));
+        Assertions.assertNull(restoredStore.get(10));
+        Assertions.assertEquals("Niemcy", restoredStore.get(20).getCountry());
+        Assertions.assertEquals(1002, restoredStore.nextId());
+    }
+
+    @Test
+    public void should_IgnoreDamagedTail_When_LogWasTornByCrash() throws IOException {
+        // given
+        final PlayerStore playerStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(playerStore);
+            playerStore.insert(player(playerStore.nextId(), "Polska"));
+            playerStore.insert(player(playerStore.nextId(), "Polska"));
+        }
+        final Path lastSegment = segments().get(segments().size() - 1);
+        Files.write(lastSegment, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // when
+        final PlayerStore restoredStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(restoredStore);
+        }
+
+        // then
+        Assertions.assertEquals(2, restoredStore.size());
+        Assertions.assertEquals(playerStore.get(2), restoredStore.get(2));
+    }
+
+    @Test
+    public void should_NotReuseIds_When_HighestPlayersWereDeleted() throws IOException {
+        // given
+        final PlayerStore playerStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(playerStore);
+            for (int i = 0; i < 3; i++) {
+                playerStore.insert(player(playerStore.nextId(), "Polska"));
+            }
+            playerStore.remove(3);
+            playerJournal.snapshot();
+            playerJournal.snapshot();
+        }
+
+        // when
+        final PlayerStore restoredStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(restoredStore);
+        }
+
+        // then
+        Assertions.assertEquals(2, restoredStore.size());
+        Assertions.assertEquals(4, restoredStore.nextId());
+    }
+
+    @Test
+    public void should_RejectWrites_When_LogCouldNotBeWritten() throws IOException {
+        // given
+        final PlayerStore playerStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(playerStore);
+            playerStore.insert(player(playerStore.nextId(), "Polska"));
+            playerJournal.awaitDurable();
+            ((FileChannel) ReflectionTestUtils.getField(playerJournal, "segment")).close();
+
+            // when
+            playerStore.insert(player(playerStore.nextId(), "Niemcy"));
+
+            // then
+            Assertions.assertThrows(UncheckedIOException.class, playerJournal::awaitDurable);
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> playerStore.insert(player(3, "Niemcy")));
+            Assertions.assertThrows(UncheckedIOException.class, playerJournal::awaitDurable);
+        }
+        final PlayerStore restoredStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(restoredStore);
+        }
+        Assertions.assertEquals(List.of(playerStore.get(1)), restoredStore.stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void should_SyncBatchOnce_When_PersistedPlayersAreSavedTogether() throws IOException {
+        // given
+        final Duration fsyncInterval = Duration.ofMillis(100);
+        final int batchSize = 200;
+        final List<PlayerRequest> playerRequests = IntStream.range(0, batchSize)
+                .mapToObj(i -> PlayerRequest.builder()
+                        .coachId(3L)
+                        .firstname("Czesiek")
+                        .lastname("Zwinny")
+                        .country("Polska")
+                        .build())
+                .collect(Collectors.toList());
+        final PlayerStore playerStore = new InMemoryPlayerStore();
+        final long elapsedNanos;
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, fsyncInterval, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(playerStore);
+            final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+            beanFactory.addBean("playerStore", playerStore);
+            beanFactory.addBean("playerJournal", playerJournal);
+            final PlayerService playerService = new PlayerService(beanFactory.getBeanProvider(PlayerStore.class),
+                    beanFactory.getBeanProvider(PlayerJournal.class));
+
+            // when
+            final long start = System.nanoTime();
+            playerService.saveAll(playerRequests);
+            elapsedNanos = System.nanoTime() - start;
+        }
+
+        // then
+        Assertions.assertTrue(elapsedNanos < fsyncInterval.multipliedBy(10).toNanos(),
+                "Saving " + batchSize + " players took " + Duration.ofNanos(elapsedNanos));
+        final PlayerStore restoredStore = new InMemoryPlayerStore();
+        try (PlayerJournal playerJournal = new PlayerJournal(directory, FSYNC_INTERVAL, SNAPSHOT_INTERVAL)) {
+            playerJournal.open(restoredStore);
+        }
+        Assertions.assertEquals(batchSize, restoredStore.size());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".wal"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Player player(final long id, final String country) {
+        return Player.builder()
+                .id(id)
+                .coachId(3L)
+                .firstname("Czesiek")
+                .lastname("Zwinny")
+                .country(country)
+                .dateOfBirth(LocalDate.of(2000, 12, 12))
+                .height(160.0)
+                .weight(80.0)
+                .build();
+    }
+}
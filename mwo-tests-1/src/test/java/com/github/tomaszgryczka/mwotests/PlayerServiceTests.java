@@ -0,0 +1,329 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+@SpringBootTest(classes = PlayerService.class)
+public class PlayerServiceTests {
+    private static final int THREADS = 16;
+    private static final int PLAYERS_PER_THREAD = 5_000;
+
+    @Autowired
+    private PlayerService playerService;
+
+    @BeforeEach
+    public void clearPlayerRepository() {
+        final PlayerStore playersDb = (PlayerStore) ReflectionTestUtils.getField(playerService, "playersDb");
+        playersDb.clear();
+    }
+
+    @Test
+    public void should_AssignUniqueIds_When_PlayersAreSavedConcurrently() throws Exception {
+        // given
+        final List<Callable<List<Long>>> writers = new ArrayList<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < THREADS; i++) {
+            writers.add(() -> {
+                start.await();
+                final List<Long> ids = new ArrayList<>(PLAYERS_PER_THREAD);
+                for (int j = 0; j < PLAYERS_PER_THREAD; j++) {
+                    ids.add(playerService.save(playerRequest("Polska")).getId());
+                }
+                return ids;
+            });
+        }
+
+        // when
+        final List<Long> savedIds = runConcurrently(writers, start);
+
+        // then
+        final Set<Long> uniqueIds = new HashSet<>(savedIds);
+        Assertions.assertEquals(THREADS * PLAYERS_PER_THREAD, savedIds.size());
+        Assertions.assertEquals(savedIds.size(), uniqueIds.size());
+        Assertions.assertEquals(savedIds.size(), playerService.findPlayersByCountry("Polska").size());
+        uniqueIds.forEach(id -> Assertions.assertNotNull(playerService.findPlayerById(id)));
+    }
+
+    @Test
+    public void should_KeepStoreConsistent_When_PlayersAreUpdatedAndDeletedConcurrently() throws Exception {
+        // given
+        final List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < THREADS * PLAYERS_PER_THREAD; i++) {
+            ids.add(playerService.save(playerRequest("Polska")).getId());
+        }
+        final List<Callable<List<Long>>> workers = new ArrayList<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < THREADS; i++) {
+            final List<Long> slice = ids.subList(i * PLAYERS_PER_THREAD, (i + 1) * PLAYERS_PER_THREAD);
+            workers.add(() -> {
+                start.await();
+                final List<Long> deleted = new ArrayList<>();
+                for (final Long id : slice) {
+                    if (id % 2 == 0) {
+                        playerService.deletePlayerById(id);
+                        deleted.add(id);
+                    } else {
+                        final Player player = playerService.findPlayerById(id);
+                        playerService.setPlayerInfoById(Player.builder()
+                                .id(id)
+                                .coachId(player.getCoachId())
+                                .firstname(player.getFirstname())
+                                .lastname(player.getLastname())
+                                .country("Niemcy")
+                                .dateOfBirth(player.getDateOfBirth())
+                                .height(player.getHeight())
+                                .weight(player.getWeight())
+                                .build());
+                    }
+                }
+                return deleted;
+            });
+        }
+
+        // when
+        final List<Long> deletedIds = runConcurrently(workers, start);
+
+        // then
+        deletedIds.forEach(id -> Assertions.assertNull(playerService.findPlayerById(id)));
+        Assertions.assertEquals(0, playerService.findPlayersByCountry("Polska").size());
+        Assertions.assertEquals(ids.size() - deletedIds.size(), playerService.findPlayersByCountry("Niemcy").size());
+        Assertions.assertNull(playerService.getCountryStats("Polska"));
+        Assertions.assertEquals(ids.size() - deletedIds.size(), playerService.getCountryStats("Niemcy").getCount());
+        Assertions.assertEquals(ids.size() - deletedIds.size(), playerService.getCoachStats(1L).getCount());
+    }
+
+    @Test
+    public void should_MoveTotalsBetweenGroups_When_PlayerCountryAndCoachChanged() {
+        // given
+        final Player moved = playerService.save(playerRequest("Polska", LocalDate.of(1990, 1, 1), 170.0));
+        playerService.save(playerRequest("Polska", LocalDate.of(1995, 1, 1), 190.0));
+        final Player deleted = playerService.save(playerRequest("Niemcy", LocalDate.of(2000, 1, 1), null));
+
+        // when
+        playerService.setPlayerInfoById(Player.builder()
+                .id(moved.getId())
+                .coachId(2L)
+                .firstname(moved.getFirstname())
+                .lastname(moved.getLastname())
+                .country("Niemcy")
+                .dateOfBirth(moved.getDateOfBirth())
+                .height(175.0)
+                .weight(moved.getWeight())
+                .build());
+        playerService.deletePlayerById(deleted.getId());
+
+        // then
+        final PlayerGroupStats poland = playerService.getCountryStats("Polska");
+        final PlayerGroupStats germany = playerService.getCountryStats("Niemcy");
+        Assertions.assertEquals(1, poland.getCount());
+        Assertions.assertEquals(190.0, poland.getHeightSum());
+        Assertions.assertEquals(100.0, poland.getAverageWeight());
+        Assertions.assertEquals(1, germany.getCount());
+        Assertions.assertEquals(175.0, germany.getAverageHeight());
+        Assertions.assertEquals(1, playerService.getCoachStats(1L).getCount());
+        Assertions.assertEquals(1, playerService.getCoachStats(2L).getCount());
+        Assertions.assertEquals(2, playerService.getStats().getCountries().size());
+    }
+
+    @Test
+    public void should_FindPlayersInRange_When_PlayerHeightWasUpdated() {
+        // given
+        playerService.save(playerRequest("Polska", LocalDate.of(1990, 1, 1), 170.0));
+        final Player tall = playerService.save(playerRequest("Polska", LocalDate.of(1995, 1, 1), 190.0));
+        final Player short2 = playerService.save(playerRequest("Polska", LocalDate.of(2000, 1, 1), 175.0));
+        playerService.save(playerRequest("Polska", LocalDate.of(2010, 1, 1), 195.0));
+
+        // when
+        playerService.setPlayerInfoById(Player.builder()
+                .id(short2.getId())
+                .coachId(short2.getCoachId())
+                .firstname(short2.getFirstname())
+                .lastname(short2.getLastname())
+                .country(short2.getCountry())
+                .dateOfBirth(short2.getDateOfBirth())
+                .height(185.0)
+                .weight(short2.getWeight())
+                .build());
+        final List<Player> tallPlayers = playerService.findPlayersInRange(PlayerRangeQuery.builder()
+                .minHeight(180.0)
+                .bornTo(LocalDate.of(2005, 1, 1))
+                .sort(PlayerAttribute.HEIGHT)
+                .limit(10)
+                .build());
+        final List<Player> secondOldest = playerService.findPlayersInRange(PlayerRangeQuery.builder()
+                .bornFrom(LocalDate.of(1990, 1, 1))
+                .offset(1)
+                .limit(1)
+                .build());
+
+        // then
+        Assertions.assertEquals(List.of(short2.getId(), tall.getId()),
+                tallPlayers.stream().map(Player::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(tall.getId()),
+                secondOldest.stream().map(Player::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void should_ListPlayersWithoutValueLast_When_SortAttributeIsUnconstrained() {
+        // given
+        final Player born1990 = playerService.save(playerRequest("Polska", LocalDate.of(1990, 1, 1), 170.0));
+        final Player unknownBirth = playerService.save(playerRequest("Polska", null, 180.0));
+        final Player unknownHeight = playerService.save(playerRequest("Polska", LocalDate.of(1980, 1, 1), null));
+
+        // when
+        final List<Player> byHeight = playerService.findPlayersInRange(PlayerRangeQuery.builder()
+                .sort(PlayerAttribute.HEIGHT)
+                .limit(10)
+                .build());
+        final List<Player> byDateOfBirth = playerService.findPlayersInRange(PlayerRangeQuery.builder()
+                .limit(10)
+                .build());
+
+        // then
+        Assertions.assertEquals(List.of(born1990.getId(), unknownBirth.getId(), unknownHeight.getId()),
+                byHeight.stream().map(Player::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(List.of(unknownHeight.getId(), born1990.getId(), unknownBirth.getId()),
+                byDateOfBirth.stream().map(Player::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void should_FindPlayersByNamePrefix_When_NamesContainDiacritics() {
+        // given
+        final Player lukasz = playerService.save(namedPlayerRequest("Łukasz", "Żółć"));
+        final Player jan = playerService.save(namedPlayerRequest("Jan", "Kowalski"));
+        final Player anna = playerService.save(namedPlayerRequest("Anna", "Jankowska"));
+
+        // when
+        playerService.setPlayerInfoById(Player.builder()
+                .id(jan.getId())
+                .coachId(jan.getCoachId())
+                .firstname("Janusz")
+                .lastname("Nowak")
+                .country(jan.getCountry())
+                .dateOfBirth(jan.getDateOfBirth())
+                .height(jan.getHeight())
+                .weight(jan.getWeight())
+                .build());
+
+        // then
+        Assertions.assertEquals(List.of(lukasz.getId()), ids(playerService.searchPlayersByName("zol", 10)));
+        Assertions.assertEquals(List.of(lukasz.getId()), ids(playerService.searchPlayersByName("LUKASZ ż", 10)));
+        Assertions.assertEquals(List.of(anna.getId(), jan.getId()), ids(playerService.searchPlayersByName("jan", 10)));
+        Assertions.assertEquals(List.of(), ids(playerService.searchPlayersByName("kowal", 10)));
+    }
+
+    @Test
+    public void should_OrderMatchesByFirstWord_When_LaterQueryWordIsRarer() {
+        // given
+        for (int i = 0; i < 50; i++) {
+            playerService.save(namedPlayerRequest("Adam", "Nowak"));
+        }
+        final Player anna = playerService.save(namedPlayerRequest("Anna", "Zielińska"));
+        final Player agata = playerService.save(namedPlayerRequest("Agata", "Zielona"));
+        final Player aleksandra = playerService.save(namedPlayerRequest("Aleksandra", "Zielińska"));
+
+        // when
+        final List<Player> players = playerService.searchPlayersByName("a ziel", 2);
+
+        // then
+        Assertions.assertEquals(List.of(agata.getId(), aleksandra.getId()), ids(players));
+        Assertions.assertEquals(List.of(anna.getId(), aleksandra.getId()),
+                ids(playerService.searchPlayersByName("zielinska a", 10)));
+    }
+
+    @Test
+    public void should_MovePlayerBetweenRosters_When_CoachChanged() {
+        // given
+        final List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(playerService.save(playerRequest("Polska")).getId());
+        }
+        final Player transferred = playerService.findPlayerById(ids.get(1));
+
+        // when
+        playerService.setPlayerInfoById(Player.builder()
+                .id(transferred.getId())
+                .coachId(2L)
+                .firstname(transferred.getFirstname())
+                .lastname(transferred.getLastname())
+                .country(transferred.getCountry())
+                .dateOfBirth(transferred.getDateOfBirth())
+                .height(transferred.getHeight())
+                .weight(transferred.getWeight())
+                .build());
+        playerService.deletePlayerById(ids.get(3));
+        final PlayerPage firstPage = playerService.findPlayersByCoach(1L, null, 2);
+        final PlayerPage lastPage = playerService.findPlayersByCoach(1L, firstPage.getNextCursor(), 2);
+
+        // then
+        Assertions.assertEquals(List.of(ids.get(0), ids.get(2)), ids(firstPage.getPlayers()));
+        Assertions.assertEquals(ids.get(2), firstPage.getNextCursor());
+        Assertions.assertEquals(List.of(ids.get(4)), ids(lastPage.getPlayers()));
+        Assertions.assertNull(lastPage.getNextCursor());
+        Assertions.assertEquals(List.of(ids.get(1)), ids(playerService.findPlayersByCoach(2L, null, 10).getPlayers()));
+        Assertions.assertEquals(List.of(), ids(playerService.findPlayersByCoach(7L, null, 10).getPlayers()));
+    }
+
+    private static List<Long> ids(final List<Player> players) {
+        return players.stream().map(Player::getId).collect(Collectors.toList());
+    }
+
+    private List<Long> runConcurrently(final List<Callable<List<Long>>> tasks, final CountDownLatch start) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<List<Long>>> futures = new ArrayList<>();
+            tasks.forEach(task -> futures.add(executor.submit(task)));
+            start.countDown();
+
+            final List<Long> result = new ArrayList<>();
+            for (final Future<List<Long>> future : futures) {
+                result.addAll(future.get());
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PlayerRequest playerRequest(final String country) {
+        return playerRequest(country, LocalDate.of(2000, 10, 10), 180.0);
+    }
+
+    private PlayerRequest namedPlayerRequest(final String firstname, final String lastname) {
+        return PlayerRequest.builder()
+                .coachId(1L)
+                .country("Polska")
+                .dateOfBirth(LocalDate.of(2000, 10, 10))
+                .firstname(firstname)
+                .lastname(lastname)
+                .build();
+    }
+
+    private PlayerRequest playerRequest(final String country, final LocalDate dateOfBirth, final Double height) {
+        return PlayerRequest.builder()
+                .coachId(1L)
+                .country(country)
+                .dateOfBirth(dateOfBirth)
+                .firstname("TEST_FIRSTNAME")
+                .lastname("TEST_LASTNAME")
+                .height(height)
+                .weight(100.0)
+                .build();
+    }
+}
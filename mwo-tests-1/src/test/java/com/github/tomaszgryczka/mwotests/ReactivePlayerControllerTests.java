@@ -0,0 +1,204 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@WebFluxTest(controllers = ReactivePlayerController.class)
+@ContextConfiguration(classes = {PlayerService.class, ReactivePlayerService.class, ReactivePlayerController.class,
+        SmileConfiguration.class})
+public class ReactivePlayerControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private PlayerService playerService;
+
+    @BeforeEach
+    public void setPlayerRepository() {
+        final PlayerStore playersDb = (PlayerStore) ReflectionTestUtils.getField(playerService, "playersDb");
+        playersDb.clear();
+        getPlayersData().forEach(playersDb::insert);
+    }
+
+    @Test
+    public void should_ReturnPlayer_When_GivenPlayerId() {
+        // when
+        final WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/players/{playerId}", 3L)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange();
+
+        // then
+        response.expectStatus().isOk()
+                .expectBody(Player.class).isEqualTo(getPlayersData().get(3));
+    }
+
+    @Test
+    public void should_ReturnPlayer_When_CreatePlayerRequestSent() {
+        // given
+        final PlayerRequest playerRequest = PlayerRequest.builder()
+                .coachId(1L)
+                .country("Poland")
+                .dateOfBirth(LocalDate.of(2000, 10, 10))
+                .firstname("TEST_FIRSTNAME")
+                .lastname("TEST_LASTNAME")
+                .height(180.0)
+                .weight(100.0)
+                .build();
+
+        // when
+        final WebTestClient.ResponseSpec response = webTestClient.post()
+                .uri("/players")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(playerRequest)
+                .exchange();
+
+        // then
+        response.expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(4)
+                .jsonPath("$.country").isEqualTo("Poland")
+                .jsonPath("$.dateOfBirth").isEqualTo("2000-10-10");
+    }
+
+    @Test
+    public void should_FilterPlayersFromPoland_When_FilterByPolandRequestSent() {
+        // when
+        final WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/players/filter/{country}", "Polska")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange();
+
+        // then
+        response.expectStatus().isOk()
+                .expectBodyList(Player.class).isEqualTo(getPlayersLivingInPoland());
+    }
+
+    @Test
+    public void should_ReturnSmilePlayers_When_FilterRequestAcceptsSmile() {
+        // when
+        final WebTestClient.ResponseSpec response = webTestClient.get()
+                .uri("/players/filter/{country}", "Polska")
+                .accept(SmileConfiguration.APPLICATION_SMILE)
+                .exchange();
+
+        // then
+        response.expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(SmileConfiguration.APPLICATION_SMILE)
+                .expectBodyList(Player.class).isEqualTo(getPlayersLivingInPoland());
+    }
+
+    @Test
+    public void should_ReturnSmilePlayer_When_CreatePlayerRequestSentAsSmile() {
+        // given
+        final PlayerRequest playerRequest = PlayerRequest.builder()
+                .coachId(1L)
+                .country("Poland")
+                .dateOfBirth(LocalDate.of(2000, 10, 10))
+                .firstname("TEST_FIRSTNAME")
+                .lastname("TEST_LASTNAME")
+                .height(180.0)
+                .weight(100.0)
+                .build();
+
+        // when
+        final WebTestClient.ResponseSpec response = webTestClient.post()
+                .uri("/players")
+                .contentType(SmileConfiguration.APPLICATION_SMILE)
+                .accept(SmileConfiguration.APPLICATION_SMILE)
+                .bodyValue(playerRequest)
+                .exchange();
+
+        // then
+        final Player player = response.expectStatus().isCreated()
+                .expectHeader().contentTypeCompatibleWith(SmileConfiguration.APPLICATION_SMILE)
+                .expectBody(Player.class)
+                .returnResult()
+                .getResponseBody();
+        Assertions.assertEquals(4L, player.getId());
+        Assertions.assertEquals("Poland", player.getCountry());
+        Assertions.assertEquals(LocalDate.of(2000, 10, 10), player.getDateOfBirth());
+    }
+
+    @Test
+    public void should_StreamOnlyRequestedPlayers_When_NdjsonClientCancels() {
+        // when
+        final List<Player> players = webTestClient.get()
+                .uri("/players/filter/{country}", "Polska")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Player.class)
+                .getResponseBody()
+                .take(2)
+                .collectList()
+                .block();
+
+        // then
+        Assertions.assertEquals(getPlayersLivingInPoland().subList(0, 2), players);
+    }
+
+    @Test
+    public void should_StreamChangesAsServerSentEvents_When_ChangesRequestAcceptsEventStream() {
+        // given
+        final long version = playerService.getChangeVersion();
+        playerService.deletePlayerById(1L);
+
+        // when
+        final ServerSentEvent<PlayerChange> event = webTestClient.get()
+                .uri("/players/changes?since={since}", version)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<PlayerChange>>() {
+                })
+                .getResponseBody()
+                .blockFirst();
+
+        // then
+        Assertions.assertEquals("change", event.event());
+        Assertions.assertEquals(String.valueOf(version + 1), event.id());
+        Assertions.assertEquals(PlayerChangeType.DELETED, event.data().getType());
+        Assertions.assertEquals(1L, event.data().getPlayerId());
+    }
+
+    @Test
+    public void should_DeletePlayer_When_DeletePlayerRequestSent() {
+        // when
+        final WebTestClient.ResponseSpec response = webTestClient.delete()
+                .uri("/players/{playerId}", 1L)
+                .exchange();
+
+        // then
+        response.expectStatus().isNoContent();
+        Assertions.assertNull(playerService.findPlayerById(1L));
+    }
+
+    private List<Player> getPlayersLivingInPoland() {
+        return getPlayersData().stream()
+                .filter(player -> player.getCountry().equals("Polska"))
+                .collect(Collectors.toList());
+    }
+
+    private List<Player> getPlayersData() {
+        return List.of(
+                new Player(0L, 3L, "Czesiek", "Zwinny", "Polska", LocalDate.of(2000, 12, 12), 160.0, 80.0),
+                new Player(1L, 3L, "Marcin", "Powolny", "Niemcy", LocalDate.of(2015, 1, 1), 165.0, 80.2),
+                new Player(2L, 3L, "Irena", "Waleczna", "Polska", LocalDate.of(2002, 12, 14), 60.0, 180.0),
+                new Player(3L, 3L, "Stefan", "Treneiro", "Polska", LocalDate.of(1969, 12, 2), 200.0, 180.0));
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.tomaszgryczka.mwotests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class ReactivePlayerServiceTests {
+
+    @Test
+    public void should_StopPolling_When_SubscriberHasNotConsumedPage() throws InterruptedException {
+        // given
+        final PlayerService playerService = Mockito.mock(PlayerService.class);
+        Mockito.when(playerService.findChanges(Mockito.anyLong(), Mockito.anyInt())).thenReturn(changes(5));
+        final ReactivePlayerService reactivePlayerService = new ReactivePlayerService(playerService);
+        final List<ServerSentEvent<Object>> events = new CopyOnWriteArrayList<>();
+        final BaseSubscriber<ServerSentEvent<Object>> slowSubscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(final Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(final ServerSentEvent<Object> event) {
+                events.add(event);
+            }
+        };
+
+        // when
+        reactivePlayerService.streamChanges(0L).subscribe(slowSubscriber);
+        Thread.sleep(PlayerChangeLog.STREAM_POLL_INTERVAL.multipliedBy(5).toMillis());
+        slowSubscriber.dispose();
+
+        // then
+        Assertions.assertEquals(1, events.size());
+        Mockito.verify(playerService, Mockito.times(1)).findChanges(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    private static PlayerChanges changes(final int count) {
+        return PlayerChanges.builder()
+                .changes(LongStream.rangeClosed(1, count)
+                        .mapToObj(version -> PlayerChange.builder()
+                                .version(version)
+                                .type(PlayerChangeType.DELETED)
+                                .playerId(version)
+                                .build())
+                        .collect(Collectors.toList()))
+                .version(count)
+                .build();
+    }
+}
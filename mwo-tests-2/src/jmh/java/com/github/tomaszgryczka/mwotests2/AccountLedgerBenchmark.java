@@ -0,0 +1,66 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order throughput of {@link AccountLedger} with eight buyers, spread over {@code accountCount}
+ * accounts or all charging the same one. Each operation is a debit followed by the matching
+ * credit, so balances stay stable for the whole run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class AccountLedgerBenchmark {
+    private static final long PRICE = 90_000;
+
+    @Param({"1000", "100000"})
+    public int accountCount;
+
+    private final AccountLedger accountLedger = new AccountLedger();
+    private String[] accountIds;
+
+    @Setup
+    public void openAccounts() {
+        accountIds = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accountIds[i] = "account" + i;
+            accountLedger.credit(accountIds[i], PRICE * 1000);
+        }
+    }
+
+    @Benchmark
+    public boolean randomAccounts() {
+        return order(accountIds[ThreadLocalRandom.current().nextInt(accountCount)]);
+    }
+
+    @Benchmark
+    public boolean sameAccount() {
+        return order(accountIds[0]);
+    }
+
+    private boolean order(final String accountId) {
+        final boolean debited = accountLedger.debit(accountId, PRICE);
+        if (debited) {
+            accountLedger.credit(accountId, PRICE);
+        }
+        return debited;
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * {@link EmailService} against a typical precompiled {@link java.util.regex} validator, over
+ * a mix of valid and invalid addresses. Run with {@code -prof gc} to confirm the scanner does
+ * not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailServiceBenchmark {
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$");
+    private static final String[] EMAILS = {
+            "first.last@sub.example.co.uk",
+            "user12345@test.com",
+            "user+tag@example.io",
+            "bad..address@example.com",
+            "missing-at-sign.example.com",
+            "test@example",
+            "very.long.local.part.with.many.atoms@mail.department.example.org",
+            "test@-example.com"};
+
+    private final EmailService emailService = new EmailService();
+    private final List<String> batch = List.of(EMAILS);
+    private int next;
+
+    @Benchmark
+    public boolean scanner() {
+        return emailService.validateEmail(nextEmail());
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return EMAIL_PATTERN.matcher(nextEmail()).matches();
+    }
+
+    @Benchmark
+    public boolean[] scannerBatch() {
+        return emailService.validateEmails(batch);
+    }
+
+    private String nextEmail() {
+        return EMAILS[next++ & (EMAILS.length - 1)];
+    }
+}
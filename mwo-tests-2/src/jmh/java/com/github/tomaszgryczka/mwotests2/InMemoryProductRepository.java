@@ -0,0 +1,50 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Heap-backed stand-in for {@link ProductRepository} used by the benchmarks.
+ */
+public class InMemoryProductRepository extends ProductRepository {
+    private final Map<String, Product> products = new ConcurrentHashMap<>();
+
+    public void save(final Product product) {
+        products.put(product.getId(), product);
+    }
+
+    @Override
+    public Product findProductById(final String id) {
+        return products.get(id);
+    }
+
+    @Override
+    public List<Product> findProductsByIds(final Collection<String> ids) {
+        final List<Product> found = new ArrayList<>(ids.size());
+        for (final String id : ids) {
+            final Product product = products.get(id);
+            if (product != null) {
+                found.add(product);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void makeProductAsUnavailable(final String id) {
+        products.computeIfPresent(id, (key, product) -> Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .isAvailable(false)
+                .build());
+    }
+
+    @Override
+    public void makeProductsAsUnavailable(final Collection<String> ids) {
+        ids.forEach(this::makeProductAsUnavailable);
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Heap-backed stand-in for {@link UserRepository} used by the benchmarks.
+ */
+public class InMemoryUserRepository extends UserRepository {
+    private final Map<String, String> passwords = new ConcurrentHashMap<>();
+
+    @Override
+    public String getUserPasswordByLogin(final String login) {
+        return passwords.get(login);
+    }
+
+    @Override
+    public UserCredentials findCredentialsByLogin(final String login) {
+        final String password = passwords.get(login);
+        return password == null ? null : UserCredentials.builder().login(login).password(password).build();
+    }
+
+    @Override
+    public boolean checkIfUserExists(final String login) {
+        return passwords.containsKey(login);
+    }
+
+    @Override
+    public Stream<String> streamLogins() {
+        return passwords.keySet().stream();
+    }
+
+    @Override
+    public boolean registerUser(final String login, final String password, final String email) {
+        return passwords.putIfAbsent(login, password) != null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of bracketing a call with {@link OperationMetrics}; the budget is under a
+ * microsecond per call. Run with {@code -prof gc} to confirm nothing is allocated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OperationMetricsBenchmark {
+    private static final String OPERATION = "benchmark.operation";
+
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+    @Benchmark
+    public long startStop() {
+        final OperationMetrics metrics = metricsRegistry.operation(OPERATION);
+        final long start = metrics.start();
+        metrics.stop(start, false);
+        return start;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long startStopContended() {
+        return startStop();
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Claim/release throughput of {@link ProductInventory} with eight buyers, either all racing
+ * for the same product or each buying its own one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ProductInventoryBenchmark {
+    private static final String CONTENDED_PRODUCT_ID = "contended";
+
+    private final ProductInventory productInventory = new ProductInventory();
+
+    @State(Scope.Thread)
+    public static class Buyer {
+        private static final AtomicInteger NEXT_BUYER = new AtomicInteger();
+
+        private String productId;
+
+        @Setup
+        public void setUp() {
+            productId = "product-" + NEXT_BUYER.getAndIncrement();
+        }
+    }
+
+    @Benchmark
+    public boolean sameProduct() {
+        final boolean reserved = productInventory.tryReserve(CONTENDED_PRODUCT_ID);
+        if (reserved) {
+            productInventory.release(CONTENDED_PRODUCT_ID);
+        }
+        return reserved;
+    }
+
+    @Benchmark
+    public boolean distinctProducts(final Buyer buyer) {
+        final boolean reserved = productInventory.tryReserve(buyer.productId);
+        productInventory.release(buyer.productId);
+        return reserved;
+    }
+}
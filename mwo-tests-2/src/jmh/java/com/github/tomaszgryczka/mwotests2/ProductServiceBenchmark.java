@@ -0,0 +1,108 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+    private static final int BASKET_SIZE = 10;
+    private static final String ACCOUNT_ID = "account";
+
+    @Param({"1000", "1000000"})
+    public int catalogSize;
+
+    @Param({"10000"})
+    public int cacheSize;
+
+    private InMemoryProductRepository productRepository;
+    private ProductInventory productInventory;
+    private ProductService productService;
+
+    @Setup
+    public void fillCatalog() {
+        productRepository = new InMemoryProductRepository();
+        for (int i = 0; i < catalogSize; i++) {
+            productRepository.save(product(String.valueOf(i)));
+        }
+        final MetricsRegistry metricsRegistry = new MetricsRegistry();
+        final InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        final CredentialCache credentialCache = new CredentialCache(userRepository, metricsRegistry, cacheSize, Duration.ofMinutes(5), Duration.ofSeconds(30));
+        final LoginFilter loginFilter = new LoginFilter(userRepository, metricsRegistry, 1000, 0.01, DataSize.ofMegabytes(1));
+        final UserService userService = new UserService(userRepository, new EmailService(), metricsRegistry, new AccountLedger(), credentialCache, loginFilter);
+        userService.creditAccount(ACCOUNT_ID, 1e15);
+        final ProductCache productCache = new ProductCache(productRepository, metricsRegistry, cacheSize, Duration.ofMinutes(5));
+        productInventory = new ProductInventory();
+        productService = new ProductService(userService, productRepository, productCache, productInventory, metricsRegistry);
+    }
+
+    /**
+     * Orders a random product and restocks it, so every call takes the successful path;
+     * the restock is part of the measured time.
+     */
+    @Benchmark
+    public boolean orderProduct() {
+        final String productId = randomProductId();
+        final boolean ordered = productService.orderProduct(ACCOUNT_ID, productId);
+        restock(productId);
+        return ordered;
+    }
+
+    /**
+     * Orders a basket of {@link #BASKET_SIZE} distinct random products and restocks them.
+     */
+    @Benchmark
+    public boolean orderProducts() {
+        final List<String> basket = new ArrayList<>(BASKET_SIZE);
+        final int first = ThreadLocalRandom.current().nextInt(catalogSize);
+        for (int i = 0; i < BASKET_SIZE; i++) {
+            basket.add(String.valueOf((first + i) % catalogSize));
+        }
+        final boolean ordered = productService.orderProducts(ACCOUNT_ID, basket);
+        basket.forEach(this::restock);
+        return ordered;
+    }
+
+    @Benchmark
+    public double checkProductPrice() {
+        return productService.checkProductPrice(randomProductId());
+    }
+
+    private void restock(final String productId) {
+        productRepository.save(product(productId));
+        productInventory.release(productId);
+    }
+
+    private String randomProductId() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(catalogSize));
+    }
+
+    private static Product product(final String id) {
+        return Product.builder()
+                .id(id)
+                .name("IPHONE " + id)
+                .price(900)
+                .isAvailable(true)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int userCount;
+
+    @Param({"10000"})
+    public int cacheSize;
+
+    private final AtomicLong registrations = new AtomicLong();
+    private UserService userService;
+
+    @Setup(Level.Iteration)
+    public void registerUsers() {
+        final InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        for (int i = 0; i < userCount; i++) {
+            userRepository.registerUser(login(i), "password" + i, login(i) + "@test.com");
+        }
+        final MetricsRegistry metricsRegistry = new MetricsRegistry();
+        final CredentialCache credentialCache = new CredentialCache(userRepository, metricsRegistry, cacheSize, Duration.ofMinutes(5), Duration.ofSeconds(30));
+        final LoginFilter loginFilter = new LoginFilter(userRepository, metricsRegistry, userCount, 0.01, DataSize.ofMegabytes(16));
+        userService = new UserService(userRepository, new EmailService(), metricsRegistry, new AccountLedger(), credentialCache, loginFilter);
+        registrations.set(userCount);
+    }
+
+    @Benchmark
+    public boolean loginUser() {
+        final int user = ThreadLocalRandom.current().nextInt(userCount);
+        return userService.loginUser(login(user), "password" + user);
+    }
+
+    /**
+     * Logins that were never registered; the login filter should answer almost all of them.
+     */
+    @Benchmark
+    public boolean loginUnknownUser() {
+        final int user = ThreadLocalRandom.current().nextInt(userCount);
+        try {
+            return userService.loginUser("unknown" + user, "password" + user);
+        } catch (final IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean registerUser() {
+        final long user = registrations.getAndIncrement();
+        return userService.registerUser(login(user), "password" + user, login(user) + "@test.com");
+    }
+
+    private static String login(final long user) {
+        return "user" + user;
+    }
+}
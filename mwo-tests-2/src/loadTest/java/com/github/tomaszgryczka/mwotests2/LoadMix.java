@@ -0,0 +1,58 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted choice between named operations, parsed from a spec such as
+ * {@code order=50,price=30,basket=10,login=10}.
+ */
+public class LoadMix {
+    private final List<String> names = new ArrayList<>();
+    private final List<LoadOperation> operations = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    public LoadMix(final String spec, final Map<String, LoadOperation> available) {
+        final String[] entries = spec.split(",");
+        cumulativeWeights = new int[entries.length];
+        int total = 0;
+        for (final String entry : entries) {
+            final String[] nameAndWeight = entry.trim().split("=");
+            final LoadOperation operation = available.get(nameAndWeight[0]);
+            if (nameAndWeight.length != 2 || operation == null) {
+                throw new IllegalArgumentException("Unknown load mix entry '" + entry + "', expected one of "
+                        + available.keySet() + " as name=weight");
+            }
+            final int weight = Integer.parseInt(nameAndWeight[1]);
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight of '" + nameAndWeight[0] + "' must be positive");
+            }
+            total += weight;
+            cumulativeWeights[names.size()] = total;
+            names.add(nameAndWeight[0]);
+            operations.add(operation);
+        }
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    /**
+     * @return the index of a randomly chosen operation, in {@link #names()} order
+     */
+    public int pick() {
+        final int roll = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; ; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+    }
+
+    public LoadOperation operation(final int index) {
+        return operations.get(index);
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One kind of request of a load mix. Completes with {@code false} or exceptionally when the
+ * request failed.
+ */
+@FunctionalInterface
+public interface LoadOperation {
+
+    CompletableFuture<Boolean> call();
+}
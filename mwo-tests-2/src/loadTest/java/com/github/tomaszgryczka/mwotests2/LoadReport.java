@@ -0,0 +1,60 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import java.util.concurrent.TimeUnit;
+
+public class LoadReport {
+    private static final String FORMAT = "%-32s %10s %10s %10s %10s %10s %10s %8s%n";
+
+    private final String name;
+    private final LatencyHistogram.Snapshot latencies;
+    private final long errors;
+    private final long rejected;
+    private final long elapsedNanos;
+
+    public LoadReport(final String name, final LatencyHistogram.Snapshot latencies, final long errors,
+                      final long rejected, final long elapsedNanos) {
+        this.name = name;
+        this.latencies = latencies;
+        this.errors = errors;
+        this.rejected = rejected;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Completed requests per second, failed ones included.
+     */
+    public double throughput() {
+        return latencies.getTotal() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public long percentileNanos(final double percentile) {
+        return latencies.valueAtPercentile(percentile);
+    }
+
+    /**
+     * Share of the attempted requests that failed or were rejected before being sent.
+     */
+    public double errorRate() {
+        final long attempted = latencies.getTotal() + rejected;
+        return attempted == 0 ? 0 : (errors + rejected) / (double) attempted;
+    }
+
+    public static String header() {
+        return String.format(FORMAT, "run", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors", "rejected");
+    }
+
+    @Override
+    public String toString() {
+        return String.format(FORMAT, name, String.format("%.0f", throughput()),
+                millis(percentileNanos(50)), millis(percentileNanos(99)), millis(percentileNanos(99.9)),
+                millis(latencies.getMax()), errors, rejected);
+    }
+
+    private static String millis(final long nanos) {
+        return String.format("%.2f", nanos / 1e6);
+    }
+}
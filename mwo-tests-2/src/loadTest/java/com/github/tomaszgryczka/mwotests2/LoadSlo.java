@@ -0,0 +1,61 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service level objectives a load run must meet, read from {@code load.slo.*} system
+ * properties: {@code p99} and {@code p999} latencies in milliseconds, the highest acceptable
+ * {@code error-rate} and the lowest acceptable {@code throughput} in requests per second.
+ * An objective without a value is not checked.
+ */
+public class LoadSlo {
+    private final Double p99Millis;
+    private final Double p999Millis;
+    private final Double maxErrorRate;
+    private final Double minThroughput;
+
+    public LoadSlo(final Double p99Millis, final Double p999Millis, final Double maxErrorRate,
+                   final Double minThroughput) {
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.maxErrorRate = maxErrorRate;
+        this.minThroughput = minThroughput;
+    }
+
+    public static LoadSlo fromSystemProperties() {
+        return new LoadSlo(
+                doubleProperty("load.slo.p99", "100"),
+                doubleProperty("load.slo.p999", null),
+                doubleProperty("load.slo.error-rate", "0.001"),
+                doubleProperty("load.slo.throughput", null));
+    }
+
+    /**
+     * @return a description of every objective the report misses, empty when all are met
+     */
+    public List<String> violations(final LoadReport report) {
+        final List<String> violations = new ArrayList<>();
+        final double p99 = report.percentileNanos(99) / 1e6;
+        if (p99Millis != null && p99 > p99Millis) {
+            violations.add(String.format("%s: p99 %.2f ms above %.2f ms", report.name(), p99, p99Millis));
+        }
+        final double p999 = report.percentileNanos(99.9) / 1e6;
+        if (p999Millis != null && p999 > p999Millis) {
+            violations.add(String.format("%s: p99.9 %.2f ms above %.2f ms", report.name(), p999, p999Millis));
+        }
+        if (maxErrorRate != null && report.errorRate() > maxErrorRate) {
+            violations.add(String.format("%s: error rate %.4f above %.4f", report.name(), report.errorRate(), maxErrorRate));
+        }
+        if (minThroughput != null && report.throughput() < minThroughput) {
+            violations.add(String.format("%s: throughput %.0f req/s below %.0f req/s",
+                    report.name(), report.throughput(), minThroughput));
+        }
+        return violations;
+    }
+
+    private static Double doubleProperty(final String name, final String defaultValue) {
+        final String value = System.getProperty(name, defaultValue);
+        return value == null || value.isBlank() ? null : Double.valueOf(value);
+    }
+}
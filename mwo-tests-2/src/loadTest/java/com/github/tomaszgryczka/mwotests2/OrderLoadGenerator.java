@@ -0,0 +1,171 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Starts the application on an ephemeral port with heap-backed repositories, drives
+ * open-model order traffic through {@link ProductService} and {@link UserService}, prints
+ * throughput and latency percentiles per operation, and exits with a non-zero status when the
+ * total misses a {@link LoadSlo}. The application has no HTTP API for orders, so the flows are
+ * called in-process from a pool of {@code -Pload.threads} threads, which stands in for the
+ * request threads of a web container.
+ * <p>
+ * Run with {@code ./gradlew loadCheck}. {@code -Pload.rate} (requests per second),
+ * {@code -Pload.duration}, {@code -Pload.warmup}, {@code -Pload.products},
+ * {@code -Pload.users}, {@code -Pload.mix}, {@code -Pload.max-in-flight} and the
+ * {@code -Pload.slo.*} objectives override the defaults. Sold products are restocked right
+ * away, as part of the measured order, so orders keep taking the successful path.
+ */
+public class OrderLoadGenerator {
+    private static final String DEFAULT_MIX = "order=50,price=30,basket=10,login=10";
+    private static final String ACCOUNT_ID = "load-test";
+    private static final int BASKET_SIZE = 3;
+    private static final double PRICE = 900;
+
+    private final ProductService productService;
+    private final UserService userService;
+    private final InMemoryProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ExecutorService executor;
+    private final int products;
+    private final int users;
+
+    OrderLoadGenerator(final ConfigurableApplicationContext app, final InMemoryProductRepository productRepository,
+                       final ExecutorService executor, final int products, final int users) {
+        this.productService = app.getBean(ProductService.class);
+        this.userService = app.getBean(UserService.class);
+        this.productCache = app.getBean(ProductCache.class);
+        this.productRepository = productRepository;
+        this.executor = executor;
+        this.products = products;
+        this.users = users;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final double rate = Double.parseDouble(System.getProperty("load.rate", "5000"));
+        final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+        final Duration duration = Duration.parse(System.getProperty("load.duration", "PT60S"));
+        final int products = Integer.getInteger("load.products", 100_000);
+        final int users = Integer.getInteger("load.users", 10_000);
+        final int threads = Integer.getInteger("load.threads", 200);
+        final int maxInFlight = Integer.getInteger("load.max-in-flight", 10_000);
+        final String mixSpec = System.getProperty("load.mix", DEFAULT_MIX);
+        final LoadSlo slo = LoadSlo.fromSystemProperties();
+
+        final InMemoryProductRepository productRepository = new InMemoryProductRepository();
+        for (int i = 0; i < products; i++) {
+            productRepository.save(product(String.valueOf(i)));
+        }
+        final InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        for (int i = 0; i < users; i++) {
+            userRepository.registerUser(login(i), password(i), login(i) + "@example.com");
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<LoadReport> reports;
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(MwoTests2Application.class)
+                .properties("server.port=0", "logging.level.com.github.tomaszgryczka=warn")
+                .initializers(context -> {
+                    final GenericApplicationContext beans = (GenericApplicationContext) context;
+                    beans.registerBean("inMemoryProductRepository", ProductRepository.class,
+                            () -> productRepository, definition -> definition.setPrimary(true));
+                    beans.registerBean("inMemoryUserRepository", UserRepository.class,
+                            () -> userRepository, definition -> definition.setPrimary(true));
+                })
+                .run()) {
+            app.getBean(UserService.class).creditAccount(ACCOUNT_ID, 1e12);
+            final OrderLoadGenerator generator = new OrderLoadGenerator(app, productRepository, executor, products, users);
+            final OpenLoopLoad load = new OpenLoopLoad(new LoadMix(mixSpec, generator.operations()), rate, maxInFlight);
+            load.run("warmup", warmup);
+            reports = load.run("orders", duration);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        System.out.print(LoadReport.header());
+        reports.forEach(System.out::print);
+
+        final List<String> violations = slo.violations(reports.get(reports.size() - 1));
+        if (!violations.isEmpty()) {
+            violations.forEach(violation -> System.err.println("SLO breached: " + violation));
+            System.exit(1);
+        }
+    }
+
+    Map<String, LoadOperation> operations() {
+        return Map.of(
+                "order", () -> async(this::order),
+                "basket", () -> async(this::orderBasket),
+                "price", () -> async(() -> productService.checkProductPrice(randomProductId()) == PRICE),
+                "login", () -> async(() -> {
+                    final int user = ThreadLocalRandom.current().nextInt(users);
+                    return userService.loginUser(login(user), password(user));
+                }));
+    }
+
+    private boolean order() {
+        final String productId = randomProductId();
+        if (productService.orderProduct(ACCOUNT_ID, productId)) {
+            restock(productId);
+        }
+        return true;
+    }
+
+    /**
+     * Orders {@link #BASKET_SIZE} adjacent products; a basket that lost a product to a
+     * concurrent order is a valid outcome, not an error.
+     */
+    private boolean orderBasket() {
+        final int first = ThreadLocalRandom.current().nextInt(products);
+        final List<String> basket = new ArrayList<>(BASKET_SIZE);
+        for (int i = 0; i < BASKET_SIZE; i++) {
+            basket.add(String.valueOf((first + i) % products));
+        }
+        if (productService.orderProducts(ACCOUNT_ID, basket)) {
+            basket.forEach(this::restock);
+        }
+        return true;
+    }
+
+    private void restock(final String productId) {
+        productRepository.save(product(productId));
+        productCache.invalidate(productId);
+    }
+
+    private CompletableFuture<Boolean> async(final Supplier<Boolean> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+
+    private String randomProductId() {
+        return String.valueOf(ThreadLocalRandom.current().nextInt(products));
+    }
+
+    private static String login(final int user) {
+        return "user" + user;
+    }
+
+    private static String password(final int user) {
+        return "password" + user;
+    }
+
+    private static Product product(final String id) {
+        return Product.builder()
+                .id(id)
+                .name("IPHONE " + id)
+                .price(PRICE)
+                .isAvailable(true)
+                .build();
+    }
+}
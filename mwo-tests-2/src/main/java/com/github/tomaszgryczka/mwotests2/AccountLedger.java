@@ -0,0 +1,59 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory account balances kept as minor units (cents) in one {@link AtomicLong} per account.
+ * A debit is a compare-and-set on the account's own counter, so checking the balance and
+ * taking the money is a single atomic step and orders on different accounts never contend.
+ */
+@Component
+public class AccountLedger {
+    private final Map<String, AtomicLong> balances = new ConcurrentHashMap<>();
+
+    public long balance(final String accountId) {
+        final AtomicLong balance = balances.get(accountId);
+        return balance == null ? 0 : balance.get();
+    }
+
+    public long credit(final String accountId, final long amount) {
+        requireNonNegative(amount);
+        return balances.computeIfAbsent(accountId, id -> new AtomicLong()).addAndGet(amount);
+    }
+
+    /**
+     * Takes {@code amount} from the account unless that would leave it below zero.
+     *
+     * @return {@code false} when the account does not hold enough money, leaving it untouched
+     */
+    public boolean debit(final String accountId, final long amount) {
+        requireNonNegative(amount);
+        final AtomicLong balance = balances.get(accountId);
+        if (balance == null) {
+            return amount == 0;
+        }
+        long current = balance.get();
+        while (current >= amount) {
+            final long witness = balance.compareAndExchange(current, current - amount);
+            if (witness == current) {
+                return true;
+            }
+            current = witness;
+        }
+        return false;
+    }
+
+    public void clear() {
+        balances.clear();
+    }
+
+    private static void requireNonNegative(final long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount must not be negative.");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded read-through cache in front of {@link UserRepository#findCredentialsByLogin(String)}.
+ * Unknown logins are cached too, with a shorter time to live, so retries for a login that does
+ * not exist do not reach the repository either.
+ * <p>
+ * Eviction is CLOCK: entries sit in a FIFO queue and an entry read since it was last looked at
+ * gets a second pass instead of being evicted. Reads only set a flag, so they never lock.
+ * Loads run inside {@link ConcurrentHashMap#compute}, so concurrent logins of the same user
+ * share one repository call and {@link #invalidate(String)} issued after a registration waits
+ * for any in-flight load, which keeps a stale "unknown login" from outliving the registration.
+ */
+@Component
+public class CredentialCache {
+    private static final String FIND_CREDENTIALS_BY_LOGIN = "UserRepository.findCredentialsByLogin";
+
+    private final UserRepository userRepository;
+    private final MetricsRegistry metricsRegistry;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger clockSize = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CredentialCache(final UserRepository userRepository,
+                           final MetricsRegistry metricsRegistry,
+                           @Value("${users.credential-cache.maximum-size:10000}") final int maximumSize,
+                           @Value("${users.credential-cache.ttl:5m}") final Duration ttl,
+                           @Value("${users.credential-cache.negative-ttl:30s}") final Duration negativeTtl) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Credential cache must hold at least 1 entry");
+        }
+        this.userRepository = userRepository;
+        this.metricsRegistry = metricsRegistry;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+    }
+
+    /**
+     * Returns the credentials of the given login, loading them on a miss.
+     *
+     * @return {@code null} when no user has the given login
+     */
+    public UserCredentials get(final String login) {
+        final Entry cached = entries.get(login);
+        if (cached != null && isFresh(cached)) {
+            cached.referenced = true;
+            if (cached.credentials == null) {
+                negativeHits.increment();
+            } else {
+                hits.increment();
+            }
+            return cached.credentials;
+        }
+
+        misses.increment();
+        final Entry[] loaded = new Entry[1];
+        final Entry entry = entries.compute(login, (key, current) -> {
+            if (current != null && current != cached && isFresh(current)) {
+                return current;
+            }
+            loaded[0] = new Entry(key, load(key), System.nanoTime());
+            return loaded[0];
+        });
+
+        if (loaded[0] != null) {
+            clock.offer(loaded[0]);
+            if (clockSize.incrementAndGet() > maximumSize) {
+                evict();
+            }
+        }
+        return entry.credentials;
+    }
+
+    public void invalidate(final String login) {
+        entries.remove(login);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public CredentialCacheStats stats() {
+        final long hitCount = hits.sum() + negativeHits.sum();
+        final long missCount = misses.sum();
+        final long requests = hitCount + missCount;
+        return CredentialCacheStats.builder()
+                .size(entries.size())
+                .hits(hits.sum())
+                .negativeHits(negativeHits.sum())
+                .misses(missCount)
+                .evictions(evictions.sum())
+                .hitRate(requests == 0 ? 0 : (double) hitCount / requests)
+                .build();
+    }
+
+    private boolean isFresh(final Entry entry) {
+        final long ttl = entry.credentials == null ? negativeTtlNanos : ttlNanos;
+        return System.nanoTime() - entry.loadedAt < ttl;
+    }
+
+    /**
+     * Advances the clock hand until one queued entry has been dropped. Entries that were
+     * invalidated or replaced in the meantime leave the queue without counting as evictions.
+     */
+    private void evict() {
+        Entry candidate;
+        while ((candidate = clock.poll()) != null) {
+            if (candidate.referenced && entries.get(candidate.key) == candidate) {
+                candidate.referenced = false;
+                clock.offer(candidate);
+                continue;
+            }
+            clockSize.decrementAndGet();
+            if (entries.remove(candidate.key, candidate)) {
+                evictions.increment();
+            }
+            return;
+        }
+    }
+
+    private UserCredentials load(final String login) {
+        return metricsRegistry.operation(FIND_CREDENTIALS_BY_LOGIN).time(() -> userRepository.findCredentialsByLogin(login));
+    }
+
+    private static class Entry {
+        private final String key;
+        private final UserCredentials credentials;
+        private final long loadedAt;
+        private volatile boolean referenced;
+
+        Entry(final String key, final UserCredentials credentials, final long loadedAt) {
+            this.key = key;
+            this.credentials = credentials;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
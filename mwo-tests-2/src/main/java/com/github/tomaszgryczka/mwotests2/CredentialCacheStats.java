@@ -0,0 +1,15 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class CredentialCacheStats {
+    private final long size;
+    private final long hits;
+    private final long negativeHits;
+    private final long misses;
+    private final long evictions;
+    private final double hitRate;
+}
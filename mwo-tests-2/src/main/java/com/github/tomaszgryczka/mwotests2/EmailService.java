@@ -2,9 +2,132 @@ package com.github.tomaszgryczka.mwotests2;
 
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+
+/**
+ * Validates addresses against the practical subset of RFC 5321/5322 that mail servers accept:
+ * a dot-atom or quoted-string local part of at most 64 characters and a domain of at least two
+ * dot-separated labels (letters, digits and inner hyphens, at most 63 characters each) with a
+ * non-numeric top-level label. Address literals, comments and non-ASCII addresses are rejected.
+ * <p>
+ * The validator is a single forward scan over the characters with a lookup table, so it runs in
+ * linear time, cannot backtrack and does not allocate.
+ */
 @Component
 public class EmailService {
+    private static final int MAX_LENGTH = 254;
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    private static final boolean[] ATEXT = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            ATEXT[c] = true;
+            ATEXT[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ATEXT[c] = true;
+        }
+        for (final char c : "!#$%&'*+-/=?^_`{|}~".toCharArray()) {
+            ATEXT[c] = true;
+        }
+    }
+
     public boolean validateEmail(final String email) {
-        return false;
+        if (email == null || email.isEmpty() || email.length() > MAX_LENGTH) {
+            return false;
+        }
+        final int at = scanLocalPart(email);
+        return at > 0 && at <= MAX_LOCAL_PART_LENGTH && isValidDomain(email, at + 1);
+    }
+
+    /**
+     * Validates every address of a bulk import.
+     *
+     * @return the result of each address, in iteration order
+     */
+    public boolean[] validateEmails(final Collection<String> emails) {
+        final boolean[] valid = new boolean[emails.size()];
+        int i = 0;
+        for (final String email : emails) {
+            valid[i++] = validateEmail(email);
+        }
+        return valid;
+    }
+
+    /**
+     * @return the index of the {@code @} that ends a valid local part, or {@code -1}
+     */
+    private static int scanLocalPart(final String email) {
+        final int length = email.length();
+        if (email.charAt(0) == '"') {
+            for (int i = 1; i < length; i++) {
+                final char c = email.charAt(i);
+                if (c == '\\') {
+                    if (++i == length || !isPrintable(email.charAt(i))) {
+                        return -1;
+                    }
+                } else if (c == '"') {
+                    return i + 1 < length && email.charAt(i + 1) == '@' ? i + 1 : -1;
+                } else if (!isPrintable(c)) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        boolean afterDot = true;
+        for (int i = 0; i < length; i++) {
+            final char c = email.charAt(i);
+            if (c == '.') {
+                if (afterDot) {
+                    return -1;
+                }
+                afterDot = true;
+            } else if (c == '@') {
+                return afterDot ? -1 : i;
+            } else if (c < ATEXT.length && ATEXT[c]) {
+                afterDot = false;
+            } else {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isValidDomain(final String email, final int start) {
+        final int length = email.length();
+        int labels = 0;
+        int labelStart = start;
+        boolean numericLabel = true;
+        for (int i = start; i <= length; i++) {
+            final char c = i == length ? '.' : email.charAt(i);
+            if (c == '.') {
+                final int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH || email.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labels++;
+                labelStart = i + 1;
+                if (i < length) {
+                    numericLabel = true;
+                }
+            } else if (c == '-') {
+                if (i == labelStart) {
+                    return false;
+                }
+                numericLabel = false;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                numericLabel = false;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return labels >= 2 && !numericLabel;
+    }
+
+    private static boolean isPrintable(final char c) {
+        return c >= ' ' && c <= '~';
     }
 }
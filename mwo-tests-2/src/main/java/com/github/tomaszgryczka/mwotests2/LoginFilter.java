@@ -0,0 +1,241 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Scalable Bloom filter of registered logins, so logins that were never registered are
+ * rejected without a repository round trip. A "might contain" answer can be a false positive
+ * and still has to be confirmed by the repository; a "does not contain" answer is exact.
+ * <p>
+ * The filter starts with one layer sized for the expected number of logins. When a layer is
+ * full a new one with twice the capacity and half the false-positive rate is added, so the
+ * overall rate stays under the configured one however many users register. Once the next
+ * layer would not fit the memory budget the last layer keeps absorbing logins and the rate
+ * degrades instead. Layers are filled with lock-free bit sets; only adding a layer locks.
+ */
+@Component
+public class LoginFilter {
+    private static final String STREAM_LOGINS = "UserRepository.streamLogins";
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final int GROWTH_FACTOR = 2;
+
+    private final long maximumBytes;
+    private final long expectedLogins;
+    private final double falsePositiveRate;
+
+    private final Object growLock = new Object();
+    private volatile Layer[] layers;
+    private volatile boolean saturated;
+
+    private final LongAdder definitelyAbsent = new LongAdder();
+    private final LongAdder mightContain = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public LoginFilter(final UserRepository userRepository,
+                       final MetricsRegistry metricsRegistry,
+                       @Value("${users.login-filter.expected-logins:1000000}") final long expectedLogins,
+                       @Value("${users.login-filter.false-positive-rate:0.01}") final double falsePositiveRate,
+                       @Value("${users.login-filter.maximum-size:16MB}") final DataSize maximumSize) {
+        if (expectedLogins < 1) {
+            throw new IllegalArgumentException("Login filter must expect at least 1 login");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        this.maximumBytes = maximumSize.toBytes();
+        this.expectedLogins = expectedLogins;
+        this.falsePositiveRate = falsePositiveRate;
+        this.layers = new Layer[]{firstLayer()};
+        loadLogins(userRepository, metricsRegistry);
+    }
+
+    /**
+     * @return {@code false} only when the login was certainly never added
+     */
+    public boolean mightContain(final String login) {
+        final long hash = hash(login);
+        for (final Layer layer : layers) {
+            if (layer.mightContain(hash)) {
+                mightContain.increment();
+                return true;
+            }
+        }
+        definitelyAbsent.increment();
+        return false;
+    }
+
+    public void add(final String login) {
+        final long hash = hash(login);
+        Layer[] current = layers;
+        for (final Layer layer : current) {
+            if (layer.mightContain(hash)) {
+                return;
+            }
+        }
+        Layer last = current[current.length - 1];
+        if (last.isFull() && !saturated) {
+            last = grow(current);
+        }
+        last.add(hash);
+    }
+
+    /**
+     * Records that a login passed the filter but the repository did not know it.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    public void clear() {
+        synchronized (growLock) {
+            layers = new Layer[]{firstLayer()};
+            saturated = false;
+        }
+    }
+
+    public LoginFilterStats stats() {
+        final Layer[] current = layers;
+        long bytes = 0;
+        long logins = 0;
+        for (final Layer layer : current) {
+            bytes += layer.bytes();
+            logins += layer.count.get();
+        }
+        return LoginFilterStats.builder()
+                .layers(current.length)
+                .sizeInBytes(bytes)
+                .logins(logins)
+                .saturated(saturated)
+                .definitelyAbsent(definitelyAbsent.sum())
+                .mightContain(mightContain.sum())
+                .falsePositives(falsePositives.sum())
+                .build();
+    }
+
+    private void loadLogins(final UserRepository userRepository, final MetricsRegistry metricsRegistry) {
+        metricsRegistry.operation(STREAM_LOGINS).record(() -> {
+            try (Stream<String> logins = userRepository.streamLogins()) {
+                logins.forEach(this::add);
+            }
+        });
+    }
+
+    private Layer firstLayer() {
+        final Layer layer = new Layer(expectedLogins, falsePositiveRate * (1 - TIGHTENING_RATIO));
+        return layer.bytes() <= maximumBytes ? layer : new Layer(expectedLogins, maximumBytes * Byte.SIZE);
+    }
+
+    private Layer grow(final Layer[] seen) {
+        synchronized (growLock) {
+            final Layer[] current = layers;
+            final Layer last = current[current.length - 1];
+            if (current != seen || !last.isFull() || saturated) {
+                return last;
+            }
+            final Layer next = new Layer(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+            long bytes = next.bytes();
+            for (final Layer layer : current) {
+                bytes += layer.bytes();
+            }
+            if (bytes > maximumBytes) {
+                saturated = true;
+                return last;
+            }
+            final Layer[] grown = new Layer[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            grown[current.length] = next;
+            layers = grown;
+            return next;
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the login's characters followed by a murmur3 finalizer, so two
+     * independent 32-bit halves are available for double hashing.
+     */
+    private static long hash(final String login) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < login.length(); i++) {
+            hash = (hash ^ login.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static class Layer {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLong count = new AtomicLong();
+
+        Layer(final long capacity, final double falsePositiveRate) {
+            this(capacity, falsePositiveRate, optimalBits(capacity, falsePositiveRate));
+        }
+
+        Layer(final long capacity, final long bits) {
+            this(capacity, Math.exp(-(double) bits / capacity * Math.log(2) * Math.log(2)), bits);
+        }
+
+        private Layer(final long capacity, final double falsePositiveRate, final long bits) {
+            final int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+            this.hashCount = (int) Math.max(1, Math.min(16, Math.round((double) bitCount / capacity * Math.log(2))));
+        }
+
+        boolean mightContain(final long hash) {
+            final int first = (int) hash;
+            final int second = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                final long bit = Math.floorMod(first + (long) i * second, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(final long hash) {
+            final int first = (int) hash;
+            final int second = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                final long bit = Math.floorMod(first + (long) i * second, bitCount);
+                final int index = (int) (bit >>> 6);
+                final long mask = 1L << bit;
+                long word = words.get(index);
+                while ((word & mask) == 0) {
+                    final long witness = words.compareAndExchange(index, word, word | mask);
+                    if (witness == word) {
+                        break;
+                    }
+                    word = witness;
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        long bytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+
+        private static long optimalBits(final long capacity, final double falsePositiveRate) {
+            return (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        }
+    }
+}
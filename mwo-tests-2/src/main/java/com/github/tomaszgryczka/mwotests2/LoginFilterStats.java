@@ -0,0 +1,16 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class LoginFilterStats {
+    private final int layers;
+    private final long sizeInBytes;
+    private final long logins;
+    private final boolean saturated;
+    private final long definitelyAbsent;
+    private final long mightContain;
+    private final long falsePositives;
+}
@@ -0,0 +1,37 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final MetricsRegistry metricsRegistry;
+    private final ProductCache productCache;
+    private final CredentialCache credentialCache;
+    private final LoginFilter loginFilter;
+
+    @GetMapping("/metrics")
+    public Map<String, OperationMetricsSnapshot> getMetrics() {
+        return metricsRegistry.snapshot();
+    }
+
+    @GetMapping("/metrics/product-cache")
+    public ProductCacheStats getProductCacheStats() {
+        return productCache.stats();
+    }
+
+    @GetMapping("/metrics/credential-cache")
+    public CredentialCacheStats getCredentialCacheStats() {
+        return credentialCache.stats();
+    }
+
+    @GetMapping("/metrics/login-filter")
+    public LoginFilterStats getLoginFilterStats() {
+        return loginFilter.stats();
+    }
+}
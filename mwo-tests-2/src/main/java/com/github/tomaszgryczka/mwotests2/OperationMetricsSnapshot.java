@@ -0,0 +1,17 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class OperationMetricsSnapshot {
+    private final long calls;
+    private final long errors;
+    private final long inFlight;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+}
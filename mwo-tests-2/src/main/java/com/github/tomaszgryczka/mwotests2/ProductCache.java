@@ -0,0 +1,323 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded read-through cache in front of {@link ProductRepository#findProductById(String)}.
+ * <p>
+ * Eviction follows W-TinyLFU: new entries land in a small LRU admission window, and when the
+ * window overflows its oldest entry only replaces the main region's LRU victim if a
+ * {@link FrequencySketch} says it was requested more often. The main region is a segmented
+ * LRU (probation and protected). Reads are lock-free; policy bookkeeping on reads is skipped
+ * when another thread holds the policy lock. Entries also expire a fixed time after loading.
+ * <p>
+ * Loads run inside {@link ConcurrentHashMap#compute}, so {@link #invalidate(String)} issued
+ * after a repository write waits for any in-flight load of that key and a stale product can
+ * never be cached afterwards. Batch loads cannot hold every key at once; they only cache their
+ * results when no invalidation happened while the repository was being read.
+ */
+@Component
+public class ProductCache {
+    private static final String FIND_PRODUCT_BY_ID = "ProductRepository.findProductById";
+    private static final String FIND_PRODUCTS_BY_IDS = "ProductRepository.findProductsByIds";
+
+    private final ProductRepository productRepository;
+    private final MetricsRegistry metricsRegistry;
+    private final long ttlNanos;
+    private final int windowMaximum;
+    private final int mainMaximum;
+    private final int protectedMaximum;
+
+    private final Map<String, Node> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessQueue window = new AccessQueue();
+    private final AccessQueue probation = new AccessQueue();
+    private final AccessQueue protectedQueue = new AccessQueue();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductCache(final ProductRepository productRepository,
+                        final MetricsRegistry metricsRegistry,
+                        @Value("${products.cache.maximum-size:10000}") final int maximumSize,
+                        @Value("${products.cache.ttl:5m}") final Duration ttl) {
+        if (maximumSize < 2) {
+            throw new IllegalArgumentException("Product cache must hold at least 2 entries");
+        }
+        this.productRepository = productRepository;
+        this.metricsRegistry = metricsRegistry;
+        this.ttlNanos = ttl.toNanos();
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.mainMaximum = maximumSize - windowMaximum;
+        this.protectedMaximum = mainMaximum * 4 / 5;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Returns the cached product, loading it from the repository on a miss. Products that do
+     * not exist are not cached.
+     */
+    public Product get(final String id) {
+        final Node cached = entries.get(id);
+        if (cached != null && System.nanoTime() - cached.loadedAt < ttlNanos) {
+            hits.increment();
+            afterRead(cached);
+            return cached.product;
+        }
+
+        misses.increment();
+        final Node[] loaded = new Node[1];
+        final Node node = entries.compute(id, (key, current) -> {
+            if (current != null && current != cached && System.nanoTime() - current.loadedAt < ttlNanos) {
+                return current;
+            }
+            final Product product = load(key);
+            loaded[0] = product == null ? null : new Node(key, product, System.nanoTime());
+            return loaded[0];
+        });
+
+        policyLock.lock();
+        try {
+            if (cached != null && cached != node) {
+                cached.unlink();
+            }
+            sketch.increment(id);
+            if (loaded[0] != null) {
+                admit(loaded[0]);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        return node == null ? null : node.product;
+    }
+
+    /**
+     * Returns the cached products, fetching every missing one with a single repository call.
+     * Ids of products that do not exist are absent from the result.
+     */
+    public Map<String, Product> getAll(final Collection<String> ids) {
+        final Map<String, Product> products = new HashMap<>();
+        final List<String> missing = new ArrayList<>();
+        final long now = System.nanoTime();
+        for (final String id : ids) {
+            final Node cached = entries.get(id);
+            if (cached != null && now - cached.loadedAt < ttlNanos) {
+                hits.increment();
+                afterRead(cached);
+                products.put(id, cached.product);
+            } else {
+                misses.increment();
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return products;
+        }
+
+        final long invalidationsBeforeLoad = invalidations.get();
+        final List<Product> loaded = loadAll(missing);
+        loaded.forEach(product -> products.put(product.getId(), product));
+
+        policyLock.lock();
+        try {
+            for (final Product product : loaded) {
+                sketch.increment(product.getId());
+                if (invalidations.get() != invalidationsBeforeLoad) {
+                    continue;
+                }
+                final Node node = new Node(product.getId(), product, System.nanoTime());
+                final Node previous = entries.put(product.getId(), node);
+                if (previous != null) {
+                    previous.unlink();
+                }
+                admit(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        return products;
+    }
+
+    public void invalidate(final String id) {
+        invalidations.incrementAndGet();
+        policyLock.lock();
+        try {
+            final Node removed = entries.remove(id);
+            if (removed != null) {
+                removed.unlink();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        policyLock.lock();
+        try {
+            entries.clear();
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public ProductCacheStats stats() {
+        final long hitCount = hits.sum();
+        final long missCount = misses.sum();
+        final long requests = hitCount + missCount;
+        return ProductCacheStats.builder()
+                .size(entries.size())
+                .hits(hitCount)
+                .misses(missCount)
+                .evictions(evictions.sum())
+                .hitRate(requests == 0 ? 0 : (double) hitCount / requests)
+                .build();
+    }
+
+    private Product load(final String id) {
+        return metricsRegistry.operation(FIND_PRODUCT_BY_ID).time(() -> productRepository.findProductById(id));
+    }
+
+    private List<Product> loadAll(final Collection<String> ids) {
+        return metricsRegistry.operation(FIND_PRODUCTS_BY_IDS).time(() -> productRepository.findProductsByIds(ids));
+    }
+
+    private void afterRead(final Node node) {
+        if (!policyLock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(node.key);
+            if (node.queue == window) {
+                window.moveToTail(node);
+            } else if (node.queue == probation) {
+                probation.remove(node);
+                protectedQueue.addTail(node);
+                if (protectedQueue.size > protectedMaximum) {
+                    final Node demoted = protectedQueue.head;
+                    protectedQueue.remove(demoted);
+                    probation.addTail(demoted);
+                }
+            } else if (node.queue == protectedQueue) {
+                protectedQueue.moveToTail(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void admit(final Node node) {
+        if (entries.get(node.key) != node) {
+            return;
+        }
+        window.addTail(node);
+        if (window.size <= windowMaximum) {
+            return;
+        }
+
+        final Node candidate = window.head;
+        window.remove(candidate);
+        probation.addTail(candidate);
+        if (probation.size + protectedQueue.size <= mainMaximum) {
+            return;
+        }
+
+        final Node victim = probation.head != candidate ? probation.head : protectedQueue.head;
+        evict(sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate);
+    }
+
+    private void evict(final Node node) {
+        node.unlink();
+        if (entries.remove(node.key, node)) {
+            evictions.increment();
+        }
+    }
+
+    private static class Node {
+        private final String key;
+        private final Product product;
+        private final long loadedAt;
+        private AccessQueue queue;
+        private Node previous;
+        private Node next;
+
+        Node(final String key, final Product product, final long loadedAt) {
+            this.key = key;
+            this.product = product;
+            this.loadedAt = loadedAt;
+        }
+
+        void unlink() {
+            if (queue != null) {
+                queue.remove(this);
+            }
+        }
+    }
+
+    private static class AccessQueue {
+        private Node head;
+        private Node tail;
+        private int size;
+
+        void addTail(final Node node) {
+            node.queue = this;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(final Node node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.queue = null;
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToTail(final Node node) {
+            if (tail != node) {
+                remove(node);
+                addTail(node);
+            }
+        }
+
+        void clear() {
+            while (head != null) {
+                remove(head);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory claim registry that makes selling a product an atomic step. A product is claimed
+ * with a single compare-and-set style insert, so among concurrent buyers of the same product
+ * exactly one wins, without a global lock. Claims only last for the sale itself: the seller
+ * releases it once the product is persisted as unavailable and evicted from the cache, and
+ * the next claimant re-reads the product, so the persisted availability guards later orders.
+ */
+@Component
+public class ProductInventory {
+    private final Set<String> claimedProducts = ConcurrentHashMap.newKeySet();
+
+    public boolean tryReserve(final String productId) {
+        return claimedProducts.add(productId);
+    }
+
+    /**
+     * Claims every product or none of them.
+     */
+    public boolean tryReserveAll(final Collection<String> productIds) {
+        int reserved = 0;
+        for (final String productId : productIds) {
+            if (!tryReserve(productId)) {
+                releaseFirst(productIds, reserved);
+                return false;
+            }
+            reserved++;
+        }
+        return true;
+    }
+
+    public void release(final String productId) {
+        claimedProducts.remove(productId);
+    }
+
+    public void releaseAll(final Collection<String> productIds) {
+        productIds.forEach(this::release);
+    }
+
+    public void clear() {
+        claimedProducts.clear();
+    }
+
+    private void releaseFirst(final Collection<String> productIds, final int count) {
+        int released = 0;
+        for (final String productId : productIds) {
+            if (released++ == count) {
+                return;
+            }
+            release(productId);
+        }
+    }
+}
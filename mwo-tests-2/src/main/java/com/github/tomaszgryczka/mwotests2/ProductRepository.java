@@ -2,6 +2,10 @@ package com.github.tomaszgryczka.mwotests2;
 
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 @Repository
 public class ProductRepository {
     public Product findProductById(final String id) {
@@ -9,7 +13,16 @@ public class ProductRepository {
         return null;
     }
 
+    public List<Product> findProductsByIds(final Collection<String> ids) {
+        // ...
+        return Collections.emptyList();
+    }
+
     public void makeProductAsUnavailable(final String id) {
         // ...
     }
+
+    public void makeProductsAsUnavailable(final Collection<String> ids) {
+        // ...
+    }
 }
@@ -3,35 +3,130 @@ package com.github.tomaszgryczka.mwotests2;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
+    private static final String MAKE_PRODUCT_AS_UNAVAILABLE = "ProductRepository.makeProductAsUnavailable";
+    private static final String MAKE_PRODUCTS_AS_UNAVAILABLE = "ProductRepository.makeProductsAsUnavailable";
 
     private final UserService userService;
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductInventory productInventory;
+    private final MetricsRegistry metricsRegistry;
 
     public boolean orderProduct(final String accountId, final String productId) {
-        final Product product = productRepository.findProductById(productId);
+        final Product product = productCache.get(productId);
         final boolean isAvailable = product.isAvailable();
 
-        if (isAvailable) {
-            final double accountBalance = userService.checkAccountBalance(accountId);
+        if (isAvailable && productInventory.tryReserve(productId)) {
+            try {
+                // The product may have been sold, and its claim released, since it was read.
+                if (!productCache.get(productId).isAvailable()) {
+                    return false;
+                }
+                if (!userService.debitAccount(accountId, product.getPrice())) {
+                    throw new IllegalStateException("Insufficient funds to buy product.");
+                }
+                boolean sold = false;
+                try {
+                    makeProductAsUnavailable(productId);
+                    sold = true;
+                    return true;
+                } finally {
+                    if (!sold) {
+                        userService.creditAccount(accountId, product.getPrice());
+                    }
+                }
+            } finally {
+                productInventory.release(productId);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Orders a whole basket with a constant number of round trips: one batched product fetch,
+     * one debit of the basket total and one batched write. Either every product
+     * is ordered or none is, including when another buyer claims one of them concurrently.
+     *
+     * @return {@code false} when any of the products is unavailable
+     */
+    public boolean orderProducts(final String accountId, final List<String> productIds) {
+        final Set<String> basket = new LinkedHashSet<>(productIds);
+        if (basket.isEmpty()) {
+            throw new IllegalArgumentException("Basket is empty.");
+        }
+        if (basket.size() != productIds.size()) {
+            throw new IllegalArgumentException("The same product can be ordered only once.");
+        }
+
+        final Map<String, Product> products = productCache.getAll(basket);
+        double total = 0;
+        for (final String productId : basket) {
+            final Product product = products.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Product with given id does not exist");
+            }
+            if (!product.isAvailable()) {
+                return false;
+            }
+            total += product.getPrice();
+        }
 
-            if (product.getPrice() < accountBalance) {
-                productRepository.makeProductAsUnavailable(productId);
+        if (!productInventory.tryReserveAll(basket)) {
+            return false;
+        }
+
+        try {
+            if (!productCache.getAll(basket).values().stream().allMatch(Product::isAvailable)) {
+                return false;
+            }
+            if (!userService.debitAccount(accountId, total)) {
+                throw new IllegalStateException("Insufficient funds to buy products.");
+            }
+            boolean sold = false;
+            try {
+                makeProductsAsUnavailable(basket);
+                sold = true;
                 return true;
-            } else {
-                throw new IllegalStateException("Insufficient funds to buy product.");
+            } finally {
+                if (!sold) {
+                    userService.creditAccount(accountId, total);
+                }
             }
+        } finally {
+            productInventory.releaseAll(basket);
         }
-        return false;
     }
 
     public double checkProductPrice(final String productId) {
-        return Optional.ofNullable(productRepository.findProductById(productId))
+        return Optional.ofNullable(productCache.get(productId))
                 .map(Product::getPrice)
                 .orElseThrow(() -> new IllegalArgumentException("Product with given id does not exist"));
     }
+
+    private void makeProductAsUnavailable(final String productId) {
+        try {
+            metricsRegistry.operation(MAKE_PRODUCT_AS_UNAVAILABLE)
+                    .record(() -> productRepository.makeProductAsUnavailable(productId));
+        } finally {
+            productCache.invalidate(productId);
+        }
+    }
+
+    private void makeProductsAsUnavailable(final Set<String> productIds) {
+        try {
+            metricsRegistry.operation(MAKE_PRODUCTS_AS_UNAVAILABLE)
+                    .record(() -> productRepository.makeProductsAsUnavailable(productIds));
+        } finally {
+            productIds.forEach(productCache::invalidate);
+        }
+    }
 }
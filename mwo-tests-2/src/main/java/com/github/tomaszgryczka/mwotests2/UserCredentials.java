@@ -0,0 +1,11 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class UserCredentials {
+    private String login;
+    private String password;
+}
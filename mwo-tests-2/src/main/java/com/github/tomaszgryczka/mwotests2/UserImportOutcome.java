@@ -0,0 +1,19 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class UserImportOutcome {
+    /**
+     * Position of the record in the imported stream, starting at 1.
+     */
+    private final long record;
+    private final String login;
+    private final UserImportStatus status;
+    /**
+     * Why the repository rejected the record's chunk; only set for {@link UserImportStatus#FAILED}.
+     */
+    private final String error;
+}
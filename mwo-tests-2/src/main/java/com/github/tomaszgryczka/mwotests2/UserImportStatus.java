@@ -0,0 +1,9 @@
+package com.github.tomaszgryczka.mwotests2;
+
+public enum UserImportStatus {
+    REGISTERED,
+    INVALID,
+    DUPLICATE,
+    ALREADY_EXISTS,
+    FAILED
+}
@@ -0,0 +1,17 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class UserImportSummary {
+    private final long registered;
+    private final long invalid;
+    private final long duplicates;
+    private final long alreadyExisting;
+    private final long failed;
+    private final List<UserImportOutcome> outcomes;
+}
@@ -0,0 +1,187 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Registers users from a partner list in fixed-size chunks. Each chunk is validated in parallel
+ * on the common fork-join pool, logins repeated within the import are dropped, and the rest is
+ * written with one {@link UserRepository#registerUsers(List)} call. Bad records, and chunks the
+ * repository fails on, are reported per record instead of aborting the import. Logins of a failed
+ * chunk do not count as seen, so later copies of them are still registered.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserImporter {
+    public static final int CHUNK_SIZE = 1000;
+    private static final int VALIDATION_THRESHOLD = 128;
+    private static final String REGISTER_USERS = "UserRepository.registerUsers";
+    private static final Logger logger = LoggerFactory.getLogger(UserImporter.class);
+
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final CredentialCache credentialCache;
+    private final LoginFilter loginFilter;
+    private final MetricsRegistry metricsRegistry;
+
+    public UserImportSummary importUsers(final Stream<UserRegistration> users) {
+        final Import userImport = new Import();
+        final Iterator<UserRegistration> iterator = users.iterator();
+        final UserRegistration[] chunk = new UserRegistration[CHUNK_SIZE];
+        final boolean[] valid = new boolean[CHUNK_SIZE];
+
+        while (iterator.hasNext()) {
+            int size = 0;
+            while (size < CHUNK_SIZE && iterator.hasNext()) {
+                chunk[size++] = iterator.next();
+            }
+            ForkJoinPool.commonPool().invoke(new Validation(this::isValid, chunk, valid, 0, size));
+            userImport.register(chunk, valid, size);
+        }
+        return userImport.finish();
+    }
+
+    private boolean isValid(final UserRegistration user) {
+        return user != null
+                && user.getLogin() != null
+                && user.getPassword() != null
+                && emailService.validateEmail(user.getEmail());
+    }
+
+    private static class Validation extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Predicate<UserRegistration> validator;
+        private final UserRegistration[] users;
+        private final boolean[] valid;
+        private final int from;
+        private final int to;
+
+        Validation(final Predicate<UserRegistration> validator, final UserRegistration[] users, final boolean[] valid,
+                   final int from, final int to) {
+            this.validator = validator;
+            this.users = users;
+            this.valid = valid;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= VALIDATION_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    valid[i] = validator.test(users[i]);
+                }
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new Validation(validator, users, valid, from, middle),
+                    new Validation(validator, users, valid, middle, to));
+        }
+    }
+
+    private class Import {
+        private final Set<String> seenLogins = new HashSet<>();
+        private final Set<String> chunkLogins = new HashSet<>();
+        private final List<UserImportOutcome> outcomes = new ArrayList<>();
+        private final UserImportStatus[] statuses = new UserImportStatus[CHUNK_SIZE];
+        private long records;
+        private long registered;
+        private long invalid;
+        private long duplicates;
+        private long alreadyExisting;
+        private long failed;
+
+        void register(final UserRegistration[] chunk, final boolean[] valid, final int size) {
+            final List<UserRegistration> accepted = new ArrayList<>(size);
+            chunkLogins.clear();
+            for (int i = 0; i < size; i++) {
+                if (!valid[i]) {
+                    invalid++;
+                    statuses[i] = UserImportStatus.INVALID;
+                } else if (seenLogins.contains(chunk[i].getLogin()) || !chunkLogins.add(chunk[i].getLogin())) {
+                    duplicates++;
+                    statuses[i] = UserImportStatus.DUPLICATE;
+                } else {
+                    accepted.add(chunk[i]);
+                    statuses[i] = null;
+                }
+            }
+
+            Set<String> existing = Set.of();
+            String error = null;
+            if (!accepted.isEmpty()) {
+                try {
+                    existing = registerUsers(accepted);
+                    seenLogins.addAll(chunkLogins);
+                } catch (RuntimeException e) {
+                    logger.error("Could not register users from records {} to {}", records + 1, records + size, e);
+                    existing = null;
+                    error = e.toString();
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (statuses[i] == null) {
+                    statuses[i] = statusOf(chunk[i].getLogin(), existing);
+                }
+                outcomes.add(UserImportOutcome.builder()
+                        .record(++records)
+                        .login(chunk[i] == null ? null : chunk[i].getLogin())
+                        .status(statuses[i])
+                        .error(statuses[i] == UserImportStatus.FAILED ? error : null)
+                        .build());
+            }
+        }
+
+        UserImportSummary finish() {
+            return UserImportSummary.builder()
+                    .registered(registered)
+                    .invalid(invalid)
+                    .duplicates(duplicates)
+                    .alreadyExisting(alreadyExisting)
+                    .failed(failed)
+                    .outcomes(outcomes)
+                    .build();
+        }
+
+        private UserImportStatus statusOf(final String login, final Set<String> existing) {
+            if (existing == null) {
+                failed++;
+                return UserImportStatus.FAILED;
+            } else if (existing.contains(login)) {
+                alreadyExisting++;
+                return UserImportStatus.ALREADY_EXISTS;
+            } else {
+                registered++;
+                return UserImportStatus.REGISTERED;
+            }
+        }
+
+        /**
+         * @return logins that already existed
+         */
+        private Set<String> registerUsers(final List<UserRegistration> accepted) {
+            try {
+                return metricsRegistry.operation(REGISTER_USERS).time(() -> {
+                    final Set<String> existing = userRepository.registerUsers(accepted);
+                    accepted.forEach(user -> loginFilter.add(user.getLogin()));
+                    return existing;
+                });
+            } finally {
+                accepted.forEach(user -> credentialCache.invalidate(user.getLogin()));
+            }
+        }
+    }
+}
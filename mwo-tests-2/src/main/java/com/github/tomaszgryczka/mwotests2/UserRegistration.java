@@ -0,0 +1,12 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class UserRegistration {
+    private final String login;
+    private final String password;
+    private final String email;
+}
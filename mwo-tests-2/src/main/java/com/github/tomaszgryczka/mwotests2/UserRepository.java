@@ -2,6 +2,11 @@ package com.github.tomaszgryczka.mwotests2;
 
 import org.springframework.stereotype.Repository;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Repository
 public class UserRepository {
     public String getUserPasswordByLogin(final String login) {
@@ -9,6 +14,16 @@ public class UserRepository {
         return null;
     }
 
+    /**
+     * Fetches the stored credentials in a single round trip.
+     *
+     * @return {@code null} when no user has the given login
+     */
+    public UserCredentials findCredentialsByLogin(final String login) {
+        // ...
+        return null;
+    }
+
     public boolean checkIfUserExists(final String login) {
         // ...
         return false;
@@ -18,4 +33,22 @@ public class UserRepository {
         // ...
         return false;
     }
+
+    /**
+     * Registers the users in one round trip.
+     *
+     * @return logins that already existed; those users are left unchanged
+     */
+    public Set<String> registerUsers(final List<UserRegistration> users) {
+        // ...
+        return Collections.emptySet();
+    }
+
+    /**
+     * Streams every registered login; callers must close the stream.
+     */
+    public Stream<String> streamLogins() {
+        // ...
+        return Stream.empty();
+    }
 }
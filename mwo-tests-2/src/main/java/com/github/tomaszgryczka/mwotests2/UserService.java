@@ -4,35 +4,46 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
-import java.util.Objects;
-import java.util.stream.Stream;
-
 @Service
 @Component
 @RequiredArgsConstructor
 public class UserService {
+    private static final String REGISTER_USER = "UserRepository.registerUser";
+    private static final long MINOR_UNITS = 100;
 
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final MetricsRegistry metricsRegistry;
+    private final AccountLedger accountLedger;
+    private final CredentialCache credentialCache;
+    private final LoginFilter loginFilter;
 
+    /**
+     * Checks the password against credentials fetched with a single repository call, served
+     * from {@link CredentialCache} when the login was seen recently. Logins the
+     * {@link LoginFilter} has never seen are rejected without looking them up.
+     */
     public boolean loginUser(final String login, final String password) {
-        final boolean userExists = userRepository.checkIfUserExists(login);
+        if (!loginFilter.mightContain(login)) {
+            throw new IllegalArgumentException("User does not exists");
+        }
+        final UserCredentials credentials = credentialCache.get(login);
 
-        if (userExists) {
-            return password.equals(userRepository.getUserPasswordByLogin(login));
+        if (credentials != null) {
+            return password.equals(credentials.getPassword());
         } else {
+            loginFilter.recordFalsePositive();
             throw new IllegalArgumentException("User does not exists");
         }
     }
 
     public boolean registerUser(final String login, final String password, final String email) {
-        boolean invalidData = Stream.of(login, password, email)
-                .anyMatch(Objects::isNull) || !emailService.validateEmail(email);
+        boolean invalidData = login == null || password == null || email == null || !emailService.validateEmail(email);
 
         if (invalidData) {
             throw new IllegalArgumentException("Invalid registration data!");
         } else {
-            final boolean userAlreadyExists = userRepository.registerUser(login, password, email);
+            final boolean userAlreadyExists = registerUserInRepository(login, password, email);
             if(userAlreadyExists) {
                 throw new IllegalArgumentException("User already exists!");
             } else {
@@ -42,6 +53,35 @@ public class UserService {
     }
 
     public double checkAccountBalance(final String accountId) {
-        return 0;
+        return (double) accountLedger.balance(accountId) / MINOR_UNITS;
+    }
+
+    /**
+     * Atomically charges the account, so concurrent orders can never overdraw it.
+     *
+     * @return {@code false} when the account balance is lower than {@code amount}
+     */
+    public boolean debitAccount(final String accountId, final double amount) {
+        return accountLedger.debit(accountId, toMinorUnits(amount));
+    }
+
+    public void creditAccount(final String accountId, final double amount) {
+        accountLedger.credit(accountId, toMinorUnits(amount));
+    }
+
+    private static long toMinorUnits(final double amount) {
+        return Math.round(amount * MINOR_UNITS);
+    }
+
+    private boolean registerUserInRepository(final String login, final String password, final String email) {
+        try {
+            return metricsRegistry.operation(REGISTER_USER).time(() -> {
+                final boolean userAlreadyExists = userRepository.registerUser(login, password, email);
+                loginFilter.add(login);
+                return userAlreadyExists;
+            });
+        } finally {
+            credentialCache.invalidate(login);
+        }
     }
 }
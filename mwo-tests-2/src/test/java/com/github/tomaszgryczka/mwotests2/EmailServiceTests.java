@@ -0,0 +1,71 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class EmailServiceTests {
+    private final EmailService emailService = new EmailService();
+
+    @Test
+    public void should_AcceptEmail_When_EmailIsValid() {
+        // given
+        final List<String> emails = List.of(
+                "test@test.com",
+                "first.last@sub.example.co.uk",
+                "user+tag@example.com",
+                "o'reilly@example.io",
+                "\"john doe\"@example.com",
+                "\"quoted\\\"quote\"@example.com",
+                "x@a-b.c1",
+                "a".repeat(64) + "@example.com");
+
+        // when
+        final boolean[] results = emailService.validateEmails(emails);
+
+        // then
+        for (int i = 0; i < results.length; i++) {
+            Assertions.assertTrue(results[i], emails.get(i));
+        }
+    }
+
+    @Test
+    public void should_RejectEmail_When_EmailIsInvalid() {
+        // given
+        final List<String> emails = Arrays.asList(
+                null,
+                "",
+                "HBDYŻ",
+                "test",
+                "@example.com",
+                "test@",
+                "test@example",
+                "te..st@example.com",
+                ".test@example.com",
+                "test.@example.com",
+                "test@@example.com",
+                "te st@example.com",
+                "test@-example.com",
+                "test@example-.com",
+                "test@example..com",
+                "test@example.com.",
+                "test@127.0.0.1",
+                "test@[127.0.0.1]",
+                "\"unterminated@example.com",
+                "\"quoted\"x@example.com",
+                "tęst@example.com",
+                "a".repeat(65) + "@example.com",
+                "test@" + "a".repeat(64) + ".com",
+                "test@" + "abc.".repeat(63) + "com");
+
+        // when
+        final boolean[] results = emailService.validateEmails(emails);
+
+        // then
+        for (int i = 0; i < results.length; i++) {
+            Assertions.assertFalse(results[i], emails.get(i));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+
+public class ProductCacheTests {
+    private final ProductRepository productRepository = Mockito.mock(ProductRepository.class);
+
+    @Test
+    public void should_LoadProductOnce_When_ProductIsRequestedRepeatedly() {
+        // given
+        final ProductCache productCache = new ProductCache(productRepository, new MetricsRegistry(), 100, Duration.ofMinutes(5));
+        Mockito.when(productRepository.findProductById("1")).thenReturn(product("1", true));
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            productCache.get("1");
+        }
+
+        // then
+        Mockito.verify(productRepository, Mockito.times(1)).findProductById("1");
+        Assertions.assertEquals(9, productCache.stats().getHits());
+        Assertions.assertEquals(1, productCache.stats().getMisses());
+    }
+
+    @Test
+    public void should_ReloadProduct_When_ProductWasInvalidated() {
+        // given
+        final ProductCache productCache = new ProductCache(productRepository, new MetricsRegistry(), 100, Duration.ofMinutes(5));
+        Mockito.when(productRepository.findProductById("1")).thenReturn(product("1", true), product("1", false));
+        productCache.get("1");
+
+        // when
+        productCache.invalidate("1");
+
+        // then
+        Assertions.assertFalse(productCache.get("1").isAvailable());
+    }
+
+    @Test
+    public void should_ReloadProduct_When_EntryExpired() throws InterruptedException {
+        // given
+        final ProductCache productCache = new ProductCache(productRepository, new MetricsRegistry(), 100, Duration.ofMillis(1));
+        Mockito.when(productRepository.findProductById("1")).thenReturn(product("1", true));
+        productCache.get("1");
+
+        // when
+        Thread.sleep(5);
+        productCache.get("1");
+
+        // then
+        Mockito.verify(productRepository, Mockito.times(2)).findProductById("1");
+    }
+
+    @Test
+    public void should_KeepFrequentlyRequestedProducts_When_ScanExceedsMaximumSize() {
+        // given
+        final int maximumSize = 100;
+        final ProductCache productCache = new ProductCache(productRepository, new MetricsRegistry(), maximumSize, Duration.ofMinutes(5));
+        Mockito.when(productRepository.findProductById(Mockito.anyString()))
+                .thenAnswer(invocation -> product(invocation.getArgument(0), true));
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                productCache.get("hot-" + i);
+            }
+        }
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            productCache.get("cold-" + i);
+        }
+
+        // then
+        Assertions.assertTrue(productCache.stats().getSize() <= maximumSize);
+        Mockito.clearInvocations(productRepository);
+        for (int i = 0; i < 50; i++) {
+            productCache.get("hot-" + i);
+        }
+        Mockito.verify(productRepository, Mockito.atMost(5)).findProductById(Mockito.startsWith("hot-"));
+    }
+
+    private static Product product(final String id, final boolean isAvailable) {
+        return Product.builder()
+                .id(id)
+                .name("IPHONE MILION")
+                .price(900)
+                .isAvailable(isAvailable)
+                .build();
+    }
+}
@@ -1,12 +1,22 @@
 package com.github.tomaszgryczka.mwotests2;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @SpringBootTest
 public class ProductServiceTests {
     @MockBean
@@ -15,6 +25,16 @@ public class ProductServiceTests {
     private ProductService productService;
     @MockBean
     private UserService userService;
+    @Autowired
+    private ProductCache productCache;
+    @Autowired
+    private ProductInventory productInventory;
+
+    @BeforeEach
+    public void clearProductCache() {
+        productCache.invalidateAll();
+        productInventory.clear();
+    }
 
     @Test
     public void should_OrderProduct_When_ProductIsAvailable() {
@@ -30,7 +50,7 @@ public class ProductServiceTests {
                 .build();
 
         Mockito.when(productRepository.findProductById(productId)).thenReturn(availableProduct);
-        Mockito.when(userService.checkAccountBalance(accountId)).thenReturn(accountBalance);
+        givenAccountBalance(accountId, accountBalance);
 
         // when
         final boolean result = productService.orderProduct(accountId, productId);
@@ -53,7 +73,7 @@ public class ProductServiceTests {
                 .build();
 
         Mockito.when(productRepository.findProductById(productId)).thenReturn(unavailableProduct);
-        Mockito.when(userService.checkAccountBalance(accountId)).thenReturn(accountBalance);
+        givenAccountBalance(accountId, accountBalance);
 
         // when
         final boolean result = productService.orderProduct(accountId, productId);
@@ -76,10 +96,155 @@ public class ProductServiceTests {
                 .build();
 
         Mockito.when(productRepository.findProductById(productId)).thenReturn(availableProduct);
-        Mockito.when(userService.checkAccountBalance(accountId)).thenReturn(accountBalance);
+        givenAccountBalance(accountId, accountBalance);
+
+        // when
+        Assertions.assertThrows(IllegalStateException.class, () -> productService.orderProduct(accountId, productId));
+    }
+
+    @Test
+    public void should_SellProductOnlyOnce_When_OrderedConcurrently() throws Exception {
+        // given
+        final String productId = "1";
+        final int buyers = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(buyers);
+
+        givenPersistedProduct(productId, new AtomicBoolean(true));
+        Mockito.when(userService.debitAccount(Mockito.anyString(), Mockito.anyDouble())).thenReturn(true);
+
+        // when
+        final List<Future<Boolean>> orders = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            final String accountId = String.valueOf(i);
+            orders.add(executor.submit(() -> {
+                start.await();
+                return productService.orderProduct(accountId, productId);
+            }));
+        }
+        start.countDown();
+        int sold = 0;
+        for (final Future<Boolean> order : orders) {
+            sold += order.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // then
+        Assertions.assertEquals(1, sold);
+        Mockito.verify(productRepository, Mockito.times(1)).makeProductAsUnavailable(productId);
+    }
+
+    @Test
+    public void should_SellProductAgain_When_ItWasRestocked() {
+        // given
+        final String productId = "1";
+        final AtomicBoolean available = new AtomicBoolean(true);
+
+        givenPersistedProduct(productId, available);
+        givenAccountBalance("first", 1000);
+        givenAccountBalance("second", 1000);
+        givenAccountBalance("third", 1000);
+
+        // when
+        final boolean firstOrder = productService.orderProduct("first", productId);
+        final boolean orderOfSoldProduct = productService.orderProduct("second", productId);
+        available.set(true);
+        productCache.invalidate(productId);
+        final boolean orderAfterRestock = productService.orderProduct("third", productId);
+
+        // then
+        Assertions.assertTrue(firstOrder);
+        Assertions.assertFalse(orderOfSoldProduct);
+        Assertions.assertTrue(orderAfterRestock);
+        Mockito.verify(productRepository, Mockito.times(2)).makeProductAsUnavailable(productId);
+    }
+
+    @Test
+    public void should_ReleaseProduct_When_BuyerHasInsufficientFunds() {
+        // given
+        final String productId = "1";
+
+        Mockito.when(productRepository.findProductById(productId)).thenReturn(product(productId, 900, true));
+        givenAccountBalance("poor", 100);
+        givenAccountBalance("rich", 1000);
+
+        // when
+        Assertions.assertThrows(IllegalStateException.class, () -> productService.orderProduct("poor", productId));
+        final boolean result = productService.orderProduct("rich", productId);
+
+        // then
+        Assertions.assertTrue(result);
+    }
+
+    @Test
+    public void should_RefundAccount_When_ProductCannotBeMarkedAsUnavailable() {
+        // given
+        final String productId = "1";
+        final String accountId = "1";
+
+        Mockito.when(productRepository.findProductById(productId)).thenReturn(product(productId, 900, true));
+        Mockito.doThrow(new IllegalStateException("Database is down")).when(productRepository).makeProductAsUnavailable(productId);
+        givenAccountBalance(accountId, 1000);
 
         // when
         Assertions.assertThrows(IllegalStateException.class, () -> productService.orderProduct(accountId, productId));
+
+        // then
+        Mockito.verify(userService, Mockito.times(1)).debitAccount(accountId, 900);
+        Mockito.verify(userService, Mockito.times(1)).creditAccount(accountId, 900);
+    }
+
+    @Test
+    public void should_OrderAllProducts_When_BasketIsAvailableAndAffordable() {
+        // given
+        final String accountId = "1";
+        final List<String> basket = List.of("1", "2");
+
+        Mockito.when(productRepository.findProductsByIds(Mockito.anyCollection()))
+                .thenReturn(List.of(product("1", 300, true), product("2", 300, true)));
+        givenAccountBalance(accountId, 1000);
+
+        // when
+        final boolean result = productService.orderProducts(accountId, basket);
+
+        // then
+        Assertions.assertTrue(result);
+        Mockito.verify(productRepository, Mockito.times(1)).findProductsByIds(Mockito.anyCollection());
+        Mockito.verify(userService, Mockito.times(1)).debitAccount(accountId, 600);
+        Mockito.verify(productRepository, Mockito.times(1)).makeProductsAsUnavailable(Set.of("1", "2"));
+    }
+
+    @Test
+    public void should_NotOrderAnyProduct_When_OneProductIsUnavailable() {
+        // given
+        final String accountId = "1";
+        final List<String> basket = List.of("1", "2");
+
+        Mockito.when(productRepository.findProductsByIds(Mockito.anyCollection()))
+                .thenReturn(List.of(product("1", 300, true), product("2", 300, false)));
+        givenAccountBalance(accountId, 1000);
+
+        // when
+        final boolean result = productService.orderProducts(accountId, basket);
+
+        // then
+        Assertions.assertFalse(result);
+        Mockito.verify(productRepository, Mockito.never()).makeProductsAsUnavailable(Mockito.anyCollection());
+    }
+
+    @Test
+    public void should_ThrowIllegalStateException_When_BasketTotalExceedsAccountBalance() {
+        // given
+        final String accountId = "1";
+        final List<String> basket = List.of("1", "2");
+
+        Mockito.when(productRepository.findProductsByIds(Mockito.anyCollection()))
+                .thenReturn(List.of(product("1", 600, true), product("2", 600, true)));
+        givenAccountBalance(accountId, 1000);
+
+        // when
+        Assertions.assertThrows(IllegalStateException.class, () -> productService.orderProducts(accountId, basket));
+        Mockito.verify(productRepository, Mockito.never()).makeProductsAsUnavailable(Mockito.anyCollection());
     }
 
     @Test
@@ -113,4 +278,27 @@ public class ProductServiceTests {
         // when
         Assertions.assertThrows(IllegalArgumentException.class, () -> productService.checkProductPrice(productId));
     }
+
+    private void givenAccountBalance(final String accountId, final double accountBalance) {
+        Mockito.when(userService.debitAccount(Mockito.eq(accountId), Mockito.anyDouble()))
+                .thenAnswer(invocation -> invocation.<Double>getArgument(1) <= accountBalance);
+    }
+
+    private void givenPersistedProduct(final String productId, final AtomicBoolean available) {
+        Mockito.when(productRepository.findProductById(productId))
+                .thenAnswer(invocation -> product(productId, 900, available.get()));
+        Mockito.doAnswer(invocation -> {
+            available.set(false);
+            return null;
+        }).when(productRepository).makeProductAsUnavailable(productId);
+    }
+
+    private static Product product(final String id, final double price, final boolean isAvailable) {
+        return Product.builder()
+                .id(id)
+                .name("IPHONE MILION")
+                .price(price)
+                .isAvailable(isAvailable)
+                .build();
+    }
 }
@@ -0,0 +1,119 @@
+package com.github.tomaszgryczka.mwotests2;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@SpringBootTest
+public class UserImporterTests {
+    @MockBean
+    private UserRepository userRepository;
+    @Autowired
+    private UserImporter userImporter;
+
+    @Test
+    public void should_ReportEachRecord_When_ImportContainsBadRecords() {
+        // given
+        final Stream<UserRegistration> users = Stream.of(
+                user("first", "first@test.com"),
+                user("second", "not-an-email"),
+                user(null, "third@test.com"),
+                user("first", "first.again@test.com"),
+                user("existing", "existing@test.com"));
+
+        Mockito.when(userRepository.registerUsers(Mockito.anyList())).thenReturn(Set.of("existing"));
+
+        // when
+        final UserImportSummary summary = userImporter.importUsers(users);
+
+        // then
+        Assertions.assertEquals(1, summary.getRegistered());
+        Assertions.assertEquals(2, summary.getInvalid());
+        Assertions.assertEquals(1, summary.getDuplicates());
+        Assertions.assertEquals(1, summary.getAlreadyExisting());
+        Assertions.assertEquals(
+                List.of(UserImportStatus.REGISTERED, UserImportStatus.INVALID, UserImportStatus.INVALID,
+                        UserImportStatus.DUPLICATE, UserImportStatus.ALREADY_EXISTS),
+                summary.getOutcomes().stream().map(UserImportOutcome::getStatus).collect(Collectors.toList()));
+        Mockito.verify(userRepository).registerUsers(List.of(
+                user("first", "first@test.com"),
+                user("existing", "existing@test.com")));
+    }
+
+    @Test
+    public void should_RegisterUsersInChunks_When_ImportIsLargerThanChunk() {
+        // given
+        final int count = UserImporter.CHUNK_SIZE * 2 + 500;
+        final Stream<UserRegistration> users = IntStream.range(0, count)
+                .mapToObj(i -> user("user" + i, "user" + i + "@test.com"));
+
+        // when
+        final UserImportSummary summary = userImporter.importUsers(users);
+
+        // then
+        Assertions.assertEquals(count, summary.getRegistered());
+        Assertions.assertEquals(count, summary.getOutcomes().size());
+        Assertions.assertEquals(count, summary.getOutcomes().get(count - 1).getRecord());
+        Mockito.verify(userRepository, Mockito.times(3)).registerUsers(Mockito.anyList());
+    }
+
+    @Test
+    public void should_ReportFailedChunk_When_RepositoryFails() {
+        // given
+        final int count = UserImporter.CHUNK_SIZE + 1;
+        final Stream<UserRegistration> users = IntStream.range(0, count)
+                .mapToObj(i -> user("user" + i, "user" + i + "@test.com"));
+
+        Mockito.when(userRepository.registerUsers(Mockito.anyList()))
+                .thenThrow(new IllegalStateException("Database is down"))
+                .thenReturn(Set.of());
+
+        // when
+        final UserImportSummary summary = userImporter.importUsers(users);
+
+        // then
+        Assertions.assertEquals(UserImporter.CHUNK_SIZE, summary.getFailed());
+        Assertions.assertEquals(1, summary.getRegistered());
+        Assertions.assertEquals(UserImportStatus.REGISTERED, summary.getOutcomes().get(count - 1).getStatus());
+        Assertions.assertEquals("java.lang.IllegalStateException: Database is down", summary.getOutcomes().get(0).getError());
+        Assertions.assertNull(summary.getOutcomes().get(count - 1).getError());
+    }
+
+    @Test
+    public void should_RegisterLaterCopy_When_ChunkWithTheSameLoginFailed() {
+        // given
+        final Stream<UserRegistration> users = Stream.concat(
+                IntStream.range(0, UserImporter.CHUNK_SIZE).mapToObj(i -> user("user" + i, "user" + i + "@test.com")),
+                Stream.of(user("user0", "user0@test.com")));
+
+        Mockito.when(userRepository.registerUsers(Mockito.anyList()))
+                .thenThrow(new IllegalStateException("Database is down"))
+                .thenReturn(Set.of());
+
+        // when
+        final UserImportSummary summary = userImporter.importUsers(users);
+
+        // then
+        Assertions.assertEquals(UserImporter.CHUNK_SIZE, summary.getFailed());
+        Assertions.assertEquals(0, summary.getDuplicates());
+        Assertions.assertEquals(UserImportStatus.REGISTERED,
+                summary.getOutcomes().get(UserImporter.CHUNK_SIZE).getStatus());
+    }
+
+    private static UserRegistration user(final String login, final String email) {
+        return UserRegistration.builder()
+                .login(login)
+                .password("TEST")
+                .email(email)
+                .build();
+    }
+}
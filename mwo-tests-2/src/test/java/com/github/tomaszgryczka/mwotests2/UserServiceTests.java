@@ -1,12 +1,20 @@
 package com.github.tomaszgryczka.mwotests2;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 @SpringBootTest
 public class UserServiceTests {
     @MockBean
@@ -15,6 +23,19 @@ public class UserServiceTests {
     private EmailService emailService;
     @Autowired
     private UserService userService;
+    @Autowired
+    private AccountLedger accountLedger;
+    @Autowired
+    private CredentialCache credentialCache;
+    @Autowired
+    private LoginFilter loginFilter;
+
+    @BeforeEach
+    public void clearState() {
+        accountLedger.clear();
+        credentialCache.invalidateAll();
+        loginFilter.clear();
+    }
 
     @Test
     public void should_LoginUser_When_CorrectCredentialsAreGiven() {
@@ -22,8 +43,8 @@ public class UserServiceTests {
         final String login = "TEST";
         final String password = "TEST";
 
-        Mockito.when(userRepository.checkIfUserExists(login)).thenReturn(true);
-        Mockito.when(userRepository.getUserPasswordByLogin(login)).thenReturn(password);
+        Mockito.when(userRepository.findCredentialsByLogin(login)).thenReturn(credentials(login, password));
+        loginFilter.add(login);
 
         // when
         final boolean isLoggedIn = userService.loginUser(login, password);
@@ -39,8 +60,8 @@ public class UserServiceTests {
         final String userPassword = "TEST";
         final String badPassword = "TEST1";
 
-        Mockito.when(userRepository.checkIfUserExists(login)).thenReturn(true);
-        Mockito.when(userRepository.getUserPasswordByLogin(login)).thenReturn(userPassword);
+        Mockito.when(userRepository.findCredentialsByLogin(login)).thenReturn(credentials(login, userPassword));
+        loginFilter.add(login);
 
         // when
         final boolean isLoggedIn = userService.loginUser(login, badPassword);
@@ -55,12 +76,84 @@ public class UserServiceTests {
         final String badlogin = "TEST";
         final String password = "TEST";
 
-        Mockito.when(userRepository.checkIfUserExists(badlogin)).thenReturn(false);
+        Mockito.when(userRepository.findCredentialsByLogin(badlogin)).thenReturn(null);
 
         // when
         Assertions.assertThrows(IllegalArgumentException.class, () -> userService.loginUser(badlogin, password));
     }
 
+    @Test
+    public void should_FetchCredentialsOnce_When_UserLogsInRepeatedly() {
+        // given
+        final String login = "TEST";
+        final String password = "TEST";
+
+        Mockito.when(userRepository.findCredentialsByLogin(login)).thenReturn(credentials(login, password));
+        loginFilter.add(login);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(userService.loginUser(login, password));
+        }
+
+        // then
+        Mockito.verify(userRepository, Mockito.times(1)).findCredentialsByLogin(login);
+    }
+
+    @Test
+    public void should_NotQueryRepositoryAgain_When_UnknownLoginIsRetried() {
+        // given
+        final String badlogin = "TEST";
+        final String password = "TEST";
+
+        Mockito.when(userRepository.findCredentialsByLogin(badlogin)).thenReturn(null);
+        // a false positive of the login filter lets the lookup through
+        loginFilter.add(badlogin);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> userService.loginUser(badlogin, password));
+        }
+
+        // then
+        Mockito.verify(userRepository, Mockito.times(1)).findCredentialsByLogin(badlogin);
+    }
+
+    @Test
+    public void should_NotQueryRepository_When_LoginWasNeverRegistered() {
+        // given
+        final String badlogin = "TEST";
+        final String password = "TEST";
+        final long definitelyAbsent = loginFilter.stats().getDefinitelyAbsent();
+
+        // when
+        Assertions.assertThrows(IllegalArgumentException.class, () -> userService.loginUser(badlogin, password));
+
+        // then
+        Mockito.verify(userRepository, Mockito.never()).findCredentialsByLogin(badlogin);
+        Assertions.assertEquals(definitelyAbsent + 1, loginFilter.stats().getDefinitelyAbsent());
+    }
+
+    @Test
+    public void should_LoginUser_When_UserRegistersAfterFailedLogin() {
+        // given
+        final String login = "TEST";
+        final String password = "TEST";
+        final String email = "test@test.com";
+
+        Mockito.when(emailService.validateEmail(email)).thenReturn(true);
+        Mockito.when(userRepository.findCredentialsByLogin(login)).thenReturn(null, credentials(login, password));
+        // a false positive of the login filter lets the lookup through
+        loginFilter.add(login);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> userService.loginUser(login, password));
+
+        // when
+        userService.registerUser(login, password, email);
+
+        // then
+        Assertions.assertTrue(userService.loginUser(login, password));
+    }
+
     @Test
     public void should_ThrowsException_When_GivenNullRegistrationData() {
         // given
@@ -126,4 +219,72 @@ public class UserServiceTests {
         // when
         Assertions.assertThrows(IllegalArgumentException.class, () -> userService.registerUser(login, password, email));
     }
+
+    @Test
+    public void should_ReturnAccountBalance_When_AccountWasCredited() {
+        // given
+        final String accountId = "1";
+
+        // when
+        userService.creditAccount(accountId, 1000.10);
+        userService.creditAccount(accountId, 0.20);
+
+        // then
+        Assertions.assertEquals(1000.30, userService.checkAccountBalance(accountId));
+    }
+
+    @Test
+    public void should_NotDebitAccount_When_BalanceIsInsufficient() {
+        // given
+        final String accountId = "1";
+        userService.creditAccount(accountId, 100);
+
+        // when
+        final boolean debited = userService.debitAccount(accountId, 900);
+
+        // then
+        Assertions.assertFalse(debited);
+        Assertions.assertEquals(100, userService.checkAccountBalance(accountId));
+    }
+
+    @Test
+    public void should_NeverOverdrawAccount_When_DebitedConcurrently() throws Exception {
+        // given
+        final String accountId = "1";
+        final int buyers = 16;
+        final int ordersPerBuyer = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        userService.creditAccount(accountId, 5000);
+
+        // when
+        final List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int debited = 0;
+                for (int order = 0; order < ordersPerBuyer; order++) {
+                    debited += userService.debitAccount(accountId, 1) ? 1 : 0;
+                }
+                return debited;
+            }));
+        }
+        start.countDown();
+        int debited = 0;
+        for (final Future<Integer> result : results) {
+            debited += result.get();
+        }
+        executor.shutdown();
+
+        // then
+        Assertions.assertEquals(5000, debited);
+        Assertions.assertEquals(0, userService.checkAccountBalance(accountId));
+    }
+
+    private static UserCredentials credentials(final String login, final String password) {
+        return UserCredentials.builder()
+                .login(login)
+                .password(password)
+                .build();
+    }
 }